@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.flapdoodle.graph.GraphAsDot;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GraphAsDotBenchmark {
+
+	@Param({"CHAIN", "WIDE_DAG", "DENSE_RANDOM", "MANY_CYCLES"})
+	public GraphShape shape;
+
+	@Param({"1000", "10000"})
+	public int size;
+
+	private DefaultDirectedGraph<Integer, DefaultEdge> graph;
+	private GraphAsDot<Integer> unsorted;
+	private GraphAsDot<Integer> sorted;
+
+	@Setup
+	public void setup() {
+		graph = shape.create(size);
+		unsorted = GraphAsDot.builder((Integer v) -> "v" + v)
+			.build();
+		sorted = GraphAsDot.builder((Integer v) -> "v" + v)
+			.sortedBy(v -> "v" + v)
+			.build();
+	}
+
+	@Benchmark
+	public String asDot() {
+		return unsorted.asDot(graph);
+	}
+
+	@Benchmark
+	public String asDotSorted() {
+		return sorted.asDot(graph);
+	}
+}
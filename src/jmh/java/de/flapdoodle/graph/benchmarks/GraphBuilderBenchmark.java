@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.flapdoodle.graph.GraphBuilder;
+import de.flapdoodle.graph.PresizedDirectedGraph;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GraphBuilderBenchmark {
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private Integer[] chain;
+
+	@Setup
+	public void setup() {
+		chain = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			chain[i] = i;
+		}
+	}
+
+	@Benchmark
+	public DefaultDirectedGraph<Integer, DefaultEdge> addEdgeChain() {
+		return GraphBuilder.<Integer>withDirectedGraph()
+			.addEdgeChain(chain[0], chain[1], Arrays.copyOfRange(chain, 2, size))
+			.build();
+	}
+
+	@Benchmark
+	public PresizedDirectedGraph<Integer, DefaultEdge> addEdgeChainPresized() {
+		return GraphBuilder.<Integer, DefaultEdge>withDirectedGraph(DefaultEdge.class, size, size - 1)
+			.addEdgeChain(chain[0], chain[1], Arrays.copyOfRange(chain, 2, size))
+			.build();
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph.benchmarks;
+
+import java.util.Random;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import de.flapdoodle.graph.Graphs;
+
+public enum GraphShape {
+	CHAIN {
+		@Override
+		void addEdges(DefaultDirectedGraph<Integer, DefaultEdge> graph, int size, Random random) {
+			for (int i = 1; i < size; i++) {
+				graph.addEdge(i - 1, i);
+			}
+		}
+	},
+	WIDE_DAG {
+		@Override
+		void addEdges(DefaultDirectedGraph<Integer, DefaultEdge> graph, int size, Random random) {
+			int width = Math.max(1, size / 4);
+			for (int i = width; i < size; i++) {
+				int levelStart = (i / width - 1) * width;
+				for (int e = 0; e < 3; e++) {
+					graph.addEdge(levelStart + random.nextInt(width), i);
+				}
+			}
+		}
+	},
+	DENSE_RANDOM {
+		@Override
+		void addEdges(DefaultDirectedGraph<Integer, DefaultEdge> graph, int size, Random random) {
+			for (int e = 0; e < size * 8; e++) {
+				int source = random.nextInt(size);
+				int target = random.nextInt(size);
+				if (source != target) {
+					graph.addEdge(source, target);
+				}
+			}
+		}
+	},
+	MANY_CYCLES {
+		@Override
+		void addEdges(DefaultDirectedGraph<Integer, DefaultEdge> graph, int size, Random random) {
+			int ringSize = 5;
+			for (int ringStart = 0; ringStart + ringSize <= size; ringStart += ringSize) {
+				for (int i = 0; i < ringSize; i++) {
+					graph.addEdge(ringStart + i, ringStart + (i + 1) % ringSize);
+				}
+				if (ringStart + 2 * ringSize <= size) {
+					graph.addEdge(ringStart, ringStart + ringSize);
+				}
+			}
+		}
+	};
+
+	abstract void addEdges(DefaultDirectedGraph<Integer, DefaultEdge> graph, int size, Random random);
+
+	public DefaultDirectedGraph<Integer, DefaultEdge> create(int size) {
+		DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.Directed.newInstance();
+		for (int i = 0; i < size; i++) {
+			graph.addVertex(i);
+		}
+		addEdges(graph, size, new Random(size));
+		return graph;
+	}
+}
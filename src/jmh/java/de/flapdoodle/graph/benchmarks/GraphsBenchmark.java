@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph.benchmarks;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.flapdoodle.graph.Edge;
+import de.flapdoodle.graph.Graphs;
+import de.flapdoodle.graph.Loop;
+import de.flapdoodle.graph.VerticesAndEdges;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GraphsBenchmark {
+
+	private static final int QUERIES = 64;
+
+	@Param({"CHAIN", "WIDE_DAG", "DENSE_RANDOM", "MANY_CYCLES"})
+	public GraphShape shape;
+
+	@Param({"1000", "10000"})
+	public int size;
+
+	private DefaultDirectedGraph<Integer, DefaultEdge> graph;
+	private int[] from;
+	private int[] to;
+
+	@Setup
+	public void setup() {
+		graph = shape.create(size);
+
+		Random random = new Random(size);
+		from = new int[QUERIES];
+		to = new int[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			from[i] = random.nextInt(size);
+			to[i] = random.nextInt(size);
+		}
+	}
+
+	@Benchmark
+	public DefaultDirectedGraph<Integer, DefaultEdge> filter() {
+		return Graphs.filter(graph, v -> v % 3 != 0);
+	}
+
+	/*
+	 * layers and loops are built on first access, so each benchmark reads every element to
+	 * measure the same work as the eager implementation did
+	 */
+
+	@Benchmark
+	public void leavesOf(Blackhole blackhole) {
+		consumeLayers(Graphs.leavesOf(graph), blackhole);
+	}
+
+	@Benchmark
+	public void rootsOf(Blackhole blackhole) {
+		consumeLayers(Graphs.rootsOf(graph), blackhole);
+	}
+
+	@Benchmark
+	public void loopsOf(Blackhole blackhole) {
+		consumeLoops(Graphs.loopsOf(graph), blackhole);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public int hasPath() {
+		int found = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			if (Graphs.hasPath(graph, from[i], to[i])) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	private static void consumeLayers(List<VerticesAndEdges<Integer, DefaultEdge>> layers, Blackhole blackhole) {
+		for (VerticesAndEdges<Integer, DefaultEdge> layer : layers) {
+			blackhole.consume(layer.vertices());
+			for (Edge<Integer, DefaultEdge> edge : layer.edges()) {
+				blackhole.consume(edge);
+			}
+			consumeLoops(layer.loops(), blackhole);
+		}
+	}
+
+	private static void consumeLoops(Collection<? extends Loop<Integer, DefaultEdge>> loops, Blackhole blackhole) {
+		for (Loop<Integer, DefaultEdge> loop : loops) {
+			for (Edge<Integer, DefaultEdge> edge : loop.edges()) {
+				blackhole.consume(edge);
+			}
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+
+/**
+ * {@link IndexedGraph} with all tables in heap arrays
+ */
+final class ArrayIndexedGraph<V, E> implements IndexedGraph<V, E> {
+
+	private final List<V> vertices;
+	private final Map<V, Integer> vertexIndex;
+	private final List<E> edges;
+	private final int[] source;
+	private final int[] target;
+	private final int[] outOffsets;
+	private final int[] outEdges;
+	private final int[] inOffsets;
+	private final int[] inEdges;
+
+	private ArrayIndexedGraph(List<V> vertices, Map<V, Integer> vertexIndex, List<E> edges, int[] source, int[] target) {
+		this.vertices = vertices;
+		this.vertexIndex = vertexIndex;
+		this.edges = edges;
+		this.source = source;
+		this.target = target;
+
+		this.outOffsets = new int[vertices.size() + 1];
+		this.outEdges = new int[edges.size()];
+		this.inOffsets = new int[vertices.size() + 1];
+		this.inEdges = new int[edges.size()];
+
+		fillAdjacency(source, outOffsets, outEdges);
+		fillAdjacency(target, inOffsets, inEdges);
+	}
+
+	@Override
+	public int vertexCount() {
+		return vertices.size();
+	}
+
+	@Override
+	public int edgeCount() {
+		return edges.size();
+	}
+
+	@Override
+	public List<V> vertices() {
+		return vertices;
+	}
+
+	@Override
+	public V vertex(int index) {
+		return vertices.get(index);
+	}
+
+	@Override
+	public int indexOf(Object vertex) {
+		Integer index = vertexIndex.get(vertex);
+		return index != null ? index : -1;
+	}
+
+	@Override
+	public E edge(int index) {
+		return edges.get(index);
+	}
+
+	@Override
+	public int source(int edge) {
+		return source[edge];
+	}
+
+	@Override
+	public int target(int edge) {
+		return target[edge];
+	}
+
+	@Override
+	public int outDegree(int vertex) {
+		return outOffsets[vertex + 1] - outOffsets[vertex];
+	}
+
+	@Override
+	public int outEdge(int vertex, int i) {
+		return outEdges[outOffsets[vertex] + i];
+	}
+
+	@Override
+	public int inDegree(int vertex) {
+		return inOffsets[vertex + 1] - inOffsets[vertex];
+	}
+
+	@Override
+	public int inEdge(int vertex, int i) {
+		return inEdges[inOffsets[vertex] + i];
+	}
+
+	@Override
+	public long estimatedBytes() {
+		return Metrics.references(vertices.size())
+			+ Metrics.hashMap(vertexIndex.size(), capacityOf(vertices.size()))
+			+ Metrics.references(edges.size())
+			+ Metrics.ints(source.length) + Metrics.ints(target.length)
+			+ Metrics.ints(outOffsets.length) + Metrics.ints(outEdges.length)
+			+ Metrics.ints(inOffsets.length) + Metrics.ints(inEdges.length);
+	}
+
+	private static int initialCapacity(int vertexCount) {
+		return Math.max(16, (int) (vertexCount / 0.75f) + 1);
+	}
+
+	private static int capacityOf(int vertexCount) {
+		int initial = initialCapacity(vertexCount);
+		int ret = Integer.highestOneBit(initial);
+		return ret < initial ? ret << 1 : ret;
+	}
+
+	private static void fillAdjacency(int[] endpoint, int[] offsets, int[] adjacency) {
+		for (int e = 0; e < endpoint.length; e++) {
+			offsets[endpoint[e] + 1]++;
+		}
+		for (int v = 1; v < offsets.length; v++) {
+			offsets[v] += offsets[v - 1];
+		}
+		int[] cursor = new int[offsets.length - 1];
+		for (int e = 0; e < endpoint.length; e++) {
+			int v = endpoint[e];
+			adjacency[offsets[v] + cursor[v]++] = e;
+		}
+	}
+
+	/**
+	 * takes ownership of vertices and edges
+	 */
+	static <V, E> ArrayIndexedGraph<V, E> of(Graph<V, E> graph, List<V> vertices, List<E> edges) {
+		Map<V, Integer> vertexIndex = new HashMap<>(initialCapacity(vertices.size()));
+		for (int i = 0; i < vertices.size(); i++) {
+			vertexIndex.put(vertices.get(i), i);
+		}
+
+		int[] source = new int[edges.size()];
+		int[] target = new int[edges.size()];
+		for (int i = 0; i < edges.size(); i++) {
+			E edge = edges.get(i);
+			source[i] = vertexIndex.get(graph.getEdgeSource(edge));
+			target[i] = vertexIndex.get(graph.getEdgeTarget(edge));
+		}
+
+		return new ArrayIndexedGraph<>(Collections.unmodifiableList(vertices), vertexIndex, Collections.unmodifiableList(edges), source, target);
+	}
+}
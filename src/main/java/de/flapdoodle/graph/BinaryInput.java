@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * reads varints and raw bytes from a buffer, which may be memory mapped
+ */
+final class BinaryInput {
+
+	private final ByteBuffer buffer;
+
+	BinaryInput(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public int readByte() throws IOException {
+		ensure(1);
+		return buffer.get() & 0xFF;
+	}
+
+	public int readInt() throws IOException {
+		ensure(Integer.BYTES);
+		return buffer.getInt();
+	}
+
+	public double readDouble() throws IOException {
+		ensure(Double.BYTES);
+		return buffer.getDouble();
+	}
+
+	public int readVarint() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					throw new IOException("varint out of range");
+				}
+				return value;
+			}
+		}
+		throw new IOException("varint too long");
+	}
+
+	/**
+	 * @return read only view of the next length prefixed bytes
+	 */
+	public ByteBuffer readBytes() throws IOException {
+		int length = readVarint();
+		ensure(length);
+		ByteBuffer ret = buffer.slice();
+		((Buffer) ret).limit(length);
+		((Buffer) buffer).position(buffer.position() + length);
+		return ret.asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return position of the next byte
+	 */
+	public int position() {
+		return buffer.position();
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			throw new IOException("unexpected end of data", new BufferUnderflowException());
+		}
+	}
+
+	static BinaryInput readFully(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		while (channel.read(buffer) != -1) {
+			if (!buffer.hasRemaining()) {
+				ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+				((Buffer) buffer).flip();
+				bigger.put(buffer);
+				buffer = bigger;
+			}
+		}
+		((Buffer) buffer).flip();
+		return new BinaryInput(buffer);
+	}
+}
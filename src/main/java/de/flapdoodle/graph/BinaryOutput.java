@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * buffered writer for varints and raw bytes, flushes to a channel when the buffer is full
+ */
+final class BinaryOutput {
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+
+	BinaryOutput(WritableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+	public BinaryOutput writeByte(int value) throws IOException {
+		ensure(1);
+		buffer.put((byte) value);
+		return this;
+	}
+
+	public BinaryOutput writeInt(int value) throws IOException {
+		ensure(Integer.BYTES);
+		buffer.putInt(value);
+		return this;
+	}
+
+	public BinaryOutput writeLong(long value) throws IOException {
+		ensure(Long.BYTES);
+		buffer.putLong(value);
+		return this;
+	}
+
+	public BinaryOutput writeDouble(double value) throws IOException {
+		ensure(Double.BYTES);
+		buffer.putDouble(value);
+		return this;
+	}
+
+	public BinaryOutput writeVarint(int value) throws IOException {
+		if (value < 0) {
+			throw new IllegalArgumentException("negative value: " + value);
+		}
+		ensure(5);
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+		return this;
+	}
+
+	public BinaryOutput writeBytes(byte[] bytes) throws IOException {
+		writeVarint(bytes.length);
+		return writeRaw(bytes);
+	}
+
+	public BinaryOutput writeRaw(byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+		return this;
+	}
+
+	public void flush() throws IOException {
+		((Buffer) buffer).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		((Buffer) buffer).clear();
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+/**
+ * immutable directed graph, vertices and edges are interned to int ids and adjacency
+ * is stored as compressed int arrays for outgoing and incoming edges
+ * <p>
+ * all modifying methods throw an {@link UnsupportedOperationException}
+ */
+public final class CompactDirectedGraph<V, E> extends AbstractGraph<V, E> {
+
+	private final IndexedGraph<V, E> graph;
+	private final int[] edgeTable;
+	private final double[] weights;
+	private final GraphType type;
+
+	private final Set<V> vertexSet;
+	private final Set<E> edgeSet;
+
+	private CompactDirectedGraph(IndexedGraph<V, E> graph, double[] weights, GraphType type) {
+		this.graph = graph;
+		this.weights = weights;
+		this.type = type;
+
+		this.edgeTable = edgeTable(graph);
+
+		this.vertexSet = new IndexedSet<>(graph.vertexCount(), graph::vertex, v -> graph.indexOf(v) != -1);
+		this.edgeSet = new IndexedSet<>(graph.edgeCount(), graph::edge, e -> edgeIdOf(e) != -1);
+	}
+
+	IndexedGraph<V, E> indexed() {
+		return graph;
+	}
+
+	@Override
+	public Set<E> getAllEdges(V sourceVertex, V targetVertex) {
+		int source = graph.indexOf(sourceVertex);
+		int target = graph.indexOf(targetVertex);
+		if (source == -1 || target == -1) {
+			return null;
+		}
+		Set<E> ret = new LinkedHashSet<>();
+		for (int i = 0; i < graph.outDegree(source); i++) {
+			int e = graph.outEdge(source, i);
+			if (graph.target(e) == target) {
+				ret.add(graph.edge(e));
+			}
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	@Override
+	public E getEdge(V sourceVertex, V targetVertex) {
+		int source = graph.indexOf(sourceVertex);
+		int target = graph.indexOf(targetVertex);
+		if (source == -1 || target == -1) {
+			return null;
+		}
+		for (int i = 0; i < graph.outDegree(source); i++) {
+			int e = graph.outEdge(source, i);
+			if (graph.target(e) == target) {
+				return graph.edge(e);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Supplier<V> getVertexSupplier() {
+		return null;
+	}
+
+	@Override
+	public Supplier<E> getEdgeSupplier() {
+		return null;
+	}
+
+	@Override
+	public E addEdge(V sourceVertex, V targetVertex) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean addEdge(V sourceVertex, V targetVertex, E e) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public V addVertex() {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean addVertex(V v) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean containsEdge(E e) {
+		return edgeIdOf(e) != -1;
+	}
+
+	@Override
+	public boolean containsVertex(V v) {
+		return graph.indexOf(v) != -1;
+	}
+
+	@Override
+	public Set<E> edgeSet() {
+		return edgeSet;
+	}
+
+	@Override
+	public int degreeOf(V vertex) {
+		int v = indexOf(vertex);
+		return graph.inDegree(v) + graph.outDegree(v);
+	}
+
+	@Override
+	public Set<E> edgesOf(V vertex) {
+		int v = indexOf(vertex);
+		int loops = 0;
+		for (int i = 0; i < graph.outDegree(v); i++) {
+			if (graph.target(graph.outEdge(v, i)) == v) {
+				loops++;
+			}
+		}
+		int outDegree = graph.outDegree(v);
+		int inEdgesWithoutLoops = graph.inDegree(v) - loops;
+		int[] edges = new int[outDegree + inEdgesWithoutLoops];
+		for (int i = 0; i < outDegree; i++) {
+			edges[i] = graph.outEdge(v, i);
+		}
+		int size = outDegree;
+		for (int i = 0; i < graph.inDegree(v); i++) {
+			int e = graph.inEdge(v, i);
+			if (graph.source(e) != v) {
+				edges[size++] = e;
+			}
+		}
+		return new IndexedSet<>(edges.length, i -> graph.edge(edges[i]),
+			e -> isEdgeOf(e, edge -> graph.source(edge) == v || graph.target(edge) == v));
+	}
+
+	@Override
+	public int inDegreeOf(V vertex) {
+		return graph.inDegree(indexOf(vertex));
+	}
+
+	@Override
+	public Set<E> incomingEdgesOf(V vertex) {
+		int v = indexOf(vertex);
+		return new IndexedSet<>(graph.inDegree(v), i -> graph.edge(graph.inEdge(v, i)),
+			e -> isEdgeOf(e, edge -> graph.target(edge) == v));
+	}
+
+	@Override
+	public int outDegreeOf(V vertex) {
+		return graph.outDegree(indexOf(vertex));
+	}
+
+	@Override
+	public Set<E> outgoingEdgesOf(V vertex) {
+		int v = indexOf(vertex);
+		return new IndexedSet<>(graph.outDegree(v), i -> graph.edge(graph.outEdge(v, i)),
+			e -> isEdgeOf(e, edge -> graph.source(edge) == v));
+	}
+
+	@Override
+	public E removeEdge(V sourceVertex, V targetVertex) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean removeEdge(E e) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean removeVertex(V v) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public Set<V> vertexSet() {
+		return vertexSet;
+	}
+
+	@Override
+	public V getEdgeSource(E e) {
+		return graph.vertex(graph.source(edgeIndexOf(e)));
+	}
+
+	@Override
+	public V getEdgeTarget(E e) {
+		return graph.vertex(graph.target(edgeIndexOf(e)));
+	}
+
+	@Override
+	public GraphType getType() {
+		return type;
+	}
+
+	@Override
+	public double getEdgeWeight(E e) {
+		int index = edgeIndexOf(e);
+		return weights != null ? weights[index] : Graph.DEFAULT_EDGE_WEIGHT;
+	}
+
+	@Override
+	public void setEdgeWeight(E e, double weight) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	private int indexOf(V vertex) {
+		assertVertexExist(vertex);
+		return graph.indexOf(vertex);
+	}
+
+	private int edgeIndexOf(E e) {
+		int index = edgeIdOf(e);
+		if (index == -1) {
+			throw new IllegalArgumentException("no such edge in graph: " + e);
+		}
+		return index;
+	}
+
+	private boolean isEdgeOf(Object e, IntPredicate check) {
+		int index = edgeIdOf(e);
+		return index != -1 && check.test(index);
+	}
+
+	/**
+	 * edge ids are found in an open addressing table of id + 1 probed by the edge hash,
+	 * so edges cost one or two ints instead of a boxed map entry each
+	 */
+	private int edgeIdOf(Object e) {
+		if (e == null) {
+			return -1;
+		}
+		int mask = edgeTable.length - 1;
+		for (int slot = hash(e) & mask; ; slot = (slot + 1) & mask) {
+			int entry = edgeTable[slot];
+			if (entry == 0) {
+				return -1;
+			}
+			if (graph.edge(entry - 1).equals(e)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	private static int[] edgeTable(IndexedGraph<?, ?> graph) {
+		int edgeCount = graph.edgeCount();
+		int[] table = new int[Integer.highestOneBit(Math.max(2, edgeCount * 2 - 1)) << 1];
+		int mask = table.length - 1;
+		for (int e = 0; e < edgeCount; e++) {
+			int slot = hash(graph.edge(e)) & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = e + 1;
+		}
+		return table;
+	}
+
+	private static int hash(Object e) {
+		int h = e.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	public static <V, E> CompactDirectedGraph<V, E> of(Graph<V, E> src) {
+		if (src instanceof CompactDirectedGraph) {
+			return (CompactDirectedGraph<V, E>) src;
+		}
+		GraphType srcType = src.getType();
+		if (!srcType.isDirected()) {
+			throw new IllegalArgumentException("graph is not directed: " + srcType);
+		}
+
+		IndexedGraph<V, E> graph = IndexedGraph.of(src);
+
+		double[] weights = null;
+		if (srcType.isWeighted()) {
+			weights = new double[graph.edgeCount()];
+			for (int e = 0; e < weights.length; e++) {
+				weights[e] = src.getEdgeWeight(graph.edge(e));
+			}
+		}
+
+		GraphType type = new DefaultGraphType.Builder()
+			.directed()
+			.allowSelfLoops(srcType.isAllowingSelfLoops())
+			.allowMultipleEdges(srcType.isAllowingMultipleEdges())
+			.allowCycles(srcType.isAllowingCycles())
+			.weighted(srcType.isWeighted())
+			.modifiable(false)
+			.build();
+
+		return new CompactDirectedGraph<>(graph, weights, type);
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.immutables.value.Value;
+import org.immutables.value.Value.Auxiliary;
+import org.immutables.value.Value.Check;
+import org.immutables.value.Value.Lazy;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+/**
+ * dag of all strongly connected components of a graph, each node is a single vertex or a {@link Loop},
+ * nodes are added in topological order (a node comes before all nodes it has an edge to)
+ */
+@Value.Immutable
+public interface Condensation<V, E> {
+
+	/**
+	 * read only, changes throw an {@link UnsupportedOperationException}
+	 */
+	Graph<Node<V, E>, DefaultEdge> graph();
+
+	Map<V, Node<V, E>> nodeOf();
+
+	/**
+	 * hash is computed once, the hash of a loop depends on all its edges
+	 */
+	@Value.Immutable(prehash = true)
+	interface Node<V, E> {
+		Optional<V> vertex();
+
+		Optional<Loop<V, E>> loop();
+
+		@Auxiliary
+		@Lazy
+		default Set<V> vertices() {
+			return loop().isPresent()
+				? loop().get().vertexSet()
+				: Collections.singleton(vertex().get());
+		}
+
+		@Check
+		default void check() {
+			if (vertex().isPresent() == loop().isPresent()) {
+				throw new IllegalArgumentException("exactly one of vertex or loop must be set: " + vertex() + ", " + loop());
+			}
+		}
+
+		static <V, E> Node<V, E> of(V vertex) {
+			return ImmutableNode.<V, E>builder().vertex(vertex).build();
+		}
+
+		static <V, E> Node<V, E> of(Loop<V, E> loop) {
+			return ImmutableNode.<V, E>builder().loop(loop).build();
+		}
+	}
+
+	static <V, E> Condensation<V, E> of(Graph<V, E> src) {
+		IndexedGraph<V, E> graph = IndexedGraph.of(src);
+		StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+
+		int count = components.count();
+		int[] successorOffsets = new int[count + 1];
+		int[] successors = components.condensedSuccessors(graph, successorOffsets);
+
+		DefaultDirectedGraph<Node<V, E>, DefaultEdge> dag = Graphs.Directed.newInstance();
+		ImmutableCondensation.Builder<V, E> builder = ImmutableCondensation.<V, E>builder()
+			.graph(new AsUnmodifiableGraph<>(dag));
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Node<V, E>[] nodes = new Node[count];
+		int[] edges = new int[graph.edgeCount()];
+		// components are numbered in reverse topological order
+		for (int c = count - 1; c >= 0; c--) {
+			nodes[c] = components.isCyclic(c)
+				? Node.of(components.loopOf(graph, c, edges))
+				: Node.of(graph.vertex(components.member(c, 0)));
+			dag.addVertex(nodes[c]);
+		}
+		for (int c = count - 1; c >= 0; c--) {
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				dag.addEdge(nodes[c], nodes[successors[i]]);
+			}
+		}
+		for (int v = 0; v < graph.vertexCount(); v++) {
+			builder.putNodeOf(graph.vertex(v), nodes[components.componentOf(v)]);
+		}
+
+		return builder.build();
+	}
+}
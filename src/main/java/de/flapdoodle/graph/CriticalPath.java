@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.List;
+import java.util.Map;
+
+import org.immutables.value.Value;
+
+/**
+ * longest path by vertex cost, an edge from a to b means that a must be done before b starts
+ * <p>
+ * vertices of a loop are collapsed into one step with the sum of their costs, if such a step
+ * is part of the path, all its vertices are included in graph order
+ */
+@Value.Immutable
+public interface CriticalPath<V> {
+
+	List<V> path();
+
+	double length();
+
+	/**
+	 * how much each vertex can be delayed without delaying the whole graph, exactly zero for vertices
+	 * on a critical path, slack below a billionth of the length is rounding and reported as zero
+	 */
+	Map<V, Double> slack();
+}
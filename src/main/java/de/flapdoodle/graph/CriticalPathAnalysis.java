@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.ToDoubleFunction;
+
+import org.jgrapht.Graph;
+
+/**
+ * forward and backward pass over the condensed graph, components are numbered in reverse
+ * topological order, so descending ids are a topological order
+ */
+final class CriticalPathAnalysis {
+
+	/**
+	 * finish times are sums of costs, so a critical vertex can get a slack of a few ulps instead of zero
+	 */
+	private static final double RELATIVE_EPSILON = 1e-9;
+
+	private CriticalPathAnalysis() {
+		// no instance
+	}
+
+	static <V> CriticalPath<V> of(Graph<V, ?> src, ToDoubleFunction<? super V> cost) {
+		IndexedGraph<V, ?> graph = IndexedGraph.of(src);
+		StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+
+		int count = components.count();
+		int[] successorOffsets = new int[count + 1];
+		int[] successors = components.condensedSuccessors(graph, successorOffsets);
+
+		double[] componentCost = new double[count];
+		for (int v = 0; v < graph.vertexCount(); v++) {
+			double vertexCost = cost.applyAsDouble(graph.vertex(v));
+			if (!(vertexCost >= 0)) {
+				throw new IllegalArgumentException("invalid cost for " + graph.vertex(v) + ": " + vertexCost);
+			}
+			componentCost[components.componentOf(v)] += vertexCost;
+		}
+
+		double[] earliestStart = new double[count];
+		double[] earliestFinish = new double[count];
+		int[] criticalPredecessor = new int[count];
+		Arrays.fill(criticalPredecessor, -1);
+
+		int last = -1;
+		for (int c = count - 1; c >= 0; c--) {
+			earliestFinish[c] = earliestStart[c] + componentCost[c];
+			if (last == -1 || earliestFinish[c] > earliestFinish[last]) {
+				last = c;
+			}
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				int s = successors[i];
+				if (criticalPredecessor[s] == -1 || earliestFinish[c] > earliestStart[s]) {
+					earliestStart[s] = earliestFinish[c];
+					criticalPredecessor[s] = c;
+				}
+			}
+		}
+		double length = last != -1 ? earliestFinish[last] : 0;
+
+		double[] latestFinish = new double[count];
+		for (int c = 0; c < count; c++) {
+			latestFinish[c] = length;
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				int s = successors[i];
+				latestFinish[c] = Math.min(latestFinish[c], latestFinish[s] - componentCost[s]);
+			}
+		}
+
+		ImmutableCriticalPath.Builder<V> builder = ImmutableCriticalPath.<V>builder()
+			.length(length);
+
+		Deque<Integer> path = new ArrayDeque<>();
+		boolean[] onPath = new boolean[count];
+		for (int c = last; c != -1; c = criticalPredecessor[c]) {
+			path.push(c);
+			onPath[c] = true;
+		}
+
+		for (int v = 0; v < graph.vertexCount(); v++) {
+			int c = components.componentOf(v);
+			double slack = latestFinish[c] - earliestFinish[c];
+			builder.putSlack(graph.vertex(v), onPath[c] || slack <= length * RELATIVE_EPSILON ? 0.0 : slack);
+		}
+
+		for (int c : path) {
+			for (int i = 0; i < components.size(c); i++) {
+				builder.addPath(graph.vertex(components.member(c, i)));
+			}
+		}
+
+		return builder.build();
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * lazy enumeration of the elementary cycles of a loop, ordered by length
+ * <p>
+ * for each length k and each start vertex s a depth first search looks for paths of length k
+ * back to s, which only use vertices after s (so each cycle is found once, starting at its first
+ * vertex) and only enter vertices from which s can still be reached in the remaining steps
+ */
+final class CycleEnumeration<V> implements Iterator<List<V>> {
+
+	private static final int STEPS_BETWEEN_CLOCK_CHECKS = 1024;
+
+	private final List<V> vertices;
+	private final int[][] successors;
+	private final int[][] predecessors;
+	private final long budgetNanos;
+	private long deadline;
+	private boolean started;
+
+	private final int[] distanceToStart;
+	private final int[] queue;
+	private final int[] path;
+	private final int[] cursor;
+	private final boolean[] onPath;
+
+	private int length = 1;
+	private int start = -1;
+	private int depth = -1;
+	private int steps;
+	private boolean done;
+
+	private List<V> next;
+
+	private CycleEnumeration(List<V> vertices, int[][] successors, int[][] predecessors, long budgetNanos) {
+		this.vertices = vertices;
+		this.successors = successors;
+		this.predecessors = predecessors;
+		this.budgetNanos = budgetNanos;
+
+		int n = vertices.size();
+		this.distanceToStart = new int[n];
+		this.queue = new int[n];
+		this.path = new int[n];
+		this.cursor = new int[n];
+		this.onPath = new boolean[n];
+		this.done = n == 0;
+	}
+
+	/**
+	 * the budget starts with the first search, not when the stream is created
+	 */
+	@Override
+	public boolean hasNext() {
+		if (!started) {
+			started = true;
+			deadline = System.nanoTime() + budgetNanos;
+		}
+		if (next == null && !done) {
+			next = search();
+		}
+		return next != null;
+	}
+
+	@Override
+	public List<V> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		List<V> ret = next;
+		next = null;
+		return ret;
+	}
+
+	private List<V> search() {
+		while (true) {
+			if (depth < 0 && !nextStart()) {
+				done = true;
+				return null;
+			}
+			if (++steps % STEPS_BETWEEN_CLOCK_CHECKS == 0 && System.nanoTime() - deadline > 0) {
+				done = true;
+				return null;
+			}
+
+			int u = path[depth];
+			int[] successorsOfU = successors[u];
+			if (cursor[depth] < successorsOfU.length) {
+				int w = successorsOfU[cursor[depth]++];
+				int used = depth + 1;
+				if (w == start) {
+					if (used == length) {
+						return cycle(used);
+					}
+				} else if (w > start && !onPath[w] && used < length && distanceToStart[w] <= length - used) {
+					path[used] = w;
+					cursor[used] = 0;
+					onPath[w] = true;
+					depth = used;
+				}
+			} else {
+				onPath[u] = false;
+				depth--;
+			}
+		}
+	}
+
+	private boolean nextStart() {
+		int n = vertices.size();
+		start++;
+		if (start == n) {
+			start = 0;
+			length++;
+			if (length > n) {
+				return false;
+			}
+		}
+		if (System.nanoTime() - deadline > 0) {
+			return false;
+		}
+		distancesTo(start);
+		path[0] = start;
+		cursor[0] = 0;
+		onPath[start] = true;
+		depth = 0;
+		return true;
+	}
+
+	/**
+	 * backward breadth first search from s, only over vertices after s
+	 */
+	private void distancesTo(int s) {
+		Arrays.fill(distanceToStart, Integer.MAX_VALUE);
+		distanceToStart[s] = 0;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = s;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int p : predecessors[v]) {
+				if (p > s && distanceToStart[p] == Integer.MAX_VALUE) {
+					distanceToStart[p] = distanceToStart[v] + 1;
+					queue[tail++] = p;
+				}
+			}
+		}
+	}
+
+	private List<V> cycle(int size) {
+		List<V> ret = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ret.add(vertices.get(path[i]));
+		}
+		return Collections.unmodifiableList(ret);
+	}
+
+	static <V, E> Stream<List<V>> of(Loop<V, E> loop, long budgetNanos) {
+
+		List<V> vertices = new ArrayList<>(loop.vertexSet());
+		Map<V, Integer> index = new HashMap<>();
+		for (int i = 0; i < vertices.size(); i++) {
+			index.put(vertices.get(i), i);
+		}
+
+		int n = vertices.size();
+		int[] outDegree = new int[n];
+		int[] inDegree = new int[n];
+		int[] sources = new int[loop.edges().size()];
+		int[] targets = new int[loop.edges().size()];
+		int edgeCount = 0;
+		for (Edge<V, E> edge : loop.edges()) {
+			sources[edgeCount] = index.get(edge.start());
+			targets[edgeCount] = index.get(edge.end());
+			outDegree[sources[edgeCount]]++;
+			inDegree[targets[edgeCount]]++;
+			edgeCount++;
+		}
+
+		int[][] successors = new int[n][];
+		int[][] predecessors = new int[n][];
+		for (int v = 0; v < n; v++) {
+			successors[v] = new int[outDegree[v]];
+			predecessors[v] = new int[inDegree[v]];
+			outDegree[v] = 0;
+			inDegree[v] = 0;
+		}
+		for (int e = 0; e < edgeCount; e++) {
+			successors[sources[e]][outDegree[sources[e]]++] = targets[e];
+			predecessors[targets[e]][inDegree[targets[e]]++] = sources[e];
+		}
+		for (int v = 0; v < n; v++) {
+			successors[v] = distinctSorted(successors[v]);
+			predecessors[v] = distinctSorted(predecessors[v]);
+		}
+
+		CycleEnumeration<V> cycles = new CycleEnumeration<>(vertices, successors, predecessors, Math.min(budgetNanos, Long.MAX_VALUE / 2));
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cycles, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+	}
+
+	private static int[] distinctSorted(int[] values) {
+		if (values.length == 0) {
+			return values;
+		}
+		Arrays.sort(values);
+		int size = 1;
+		for (int i = 1; i < values.length; i++) {
+			if (values[i] != values[size - 1]) {
+				values[size++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, size);
+	}
+}
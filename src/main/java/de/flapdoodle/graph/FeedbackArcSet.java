@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * eades, lin and smyth heuristic: vertices are ordered by repeatedly removing sinks (to the end),
+ * sources (to the front) or else the vertex with the biggest out minus in degree (to the front),
+ * every edge pointing backwards in this order is a feedback arc
+ * <p>
+ * vertices are kept in lists by degree difference, so each edge is touched a constant number of times
+ */
+final class FeedbackArcSet {
+
+	private static final int NONE = -1;
+
+	private final int vertexCount;
+	private final int[] source;
+	private final int[] target;
+	private final int[] outOffsets;
+	private final int[] outEdges;
+	private final int[] inOffsets;
+	private final int[] inEdges;
+
+	private final int[] outDegree;
+	private final int[] inDegree;
+	private final boolean[] removed;
+
+	// vertex lists: 0 = sinks, 1 = sources, 2 + maxDegree + delta = other vertices by out minus in degree
+	private final int maxDegree;
+	private final int[] head;
+	private final int[] listOf;
+	private final int[] previous;
+	private final int[] next;
+	private int maxBucket;
+
+	private FeedbackArcSet(int vertexCount, int[] source, int[] target) {
+		this.vertexCount = vertexCount;
+		this.source = source;
+		this.target = target;
+
+		this.outOffsets = new int[vertexCount + 1];
+		this.inOffsets = new int[vertexCount + 1];
+		this.outEdges = new int[source.length];
+		this.inEdges = new int[source.length];
+		this.outDegree = new int[vertexCount];
+		this.inDegree = new int[vertexCount];
+		this.removed = new boolean[vertexCount];
+
+		for (int e = 0; e < source.length; e++) {
+			if (source[e] != target[e]) {
+				outDegree[source[e]]++;
+				inDegree[target[e]]++;
+			}
+		}
+		int max = 0;
+		for (int v = 0; v < vertexCount; v++) {
+			outOffsets[v + 1] = outOffsets[v] + outDegree[v];
+			inOffsets[v + 1] = inOffsets[v] + inDegree[v];
+			max = Math.max(max, Math.max(outDegree[v], inDegree[v]));
+		}
+		int[] outCursor = Arrays.copyOf(outOffsets, vertexCount);
+		int[] inCursor = Arrays.copyOf(inOffsets, vertexCount);
+		for (int e = 0; e < source.length; e++) {
+			if (source[e] != target[e]) {
+				outEdges[outCursor[source[e]]++] = e;
+				inEdges[inCursor[target[e]]++] = e;
+			}
+		}
+
+		this.maxDegree = max;
+		this.head = new int[2 + 2 * max + 1];
+		Arrays.fill(head, NONE);
+		this.listOf = new int[vertexCount];
+		this.previous = new int[vertexCount];
+		this.next = new int[vertexCount];
+		Arrays.fill(listOf, NONE);
+		this.maxBucket = 0;
+		for (int v = 0; v < vertexCount; v++) {
+			classify(v);
+		}
+	}
+
+	/**
+	 * @return position of each vertex in the computed order
+	 */
+	private int[] order() {
+		int[] position = new int[vertexCount];
+		int front = 0;
+		int back = vertexCount - 1;
+		int remaining = vertexCount;
+
+		while (remaining > 0) {
+			int v;
+			if (head[0] != NONE) {
+				v = head[0];
+				position[v] = back--;
+			} else if (head[1] != NONE) {
+				v = head[1];
+				position[v] = front++;
+			} else {
+				while (head[maxBucket] == NONE) {
+					maxBucket--;
+				}
+				v = head[maxBucket];
+				position[v] = front++;
+			}
+			removeVertex(v);
+			remaining--;
+		}
+		return position;
+	}
+
+	private void removeVertex(int v) {
+		unlink(v);
+		removed[v] = true;
+		for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+			int w = target[outEdges[i]];
+			if (!removed[w]) {
+				inDegree[w]--;
+				unlink(w);
+				classify(w);
+			}
+		}
+		for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+			int u = source[inEdges[i]];
+			if (!removed[u]) {
+				outDegree[u]--;
+				unlink(u);
+				classify(u);
+			}
+		}
+	}
+
+	private void classify(int v) {
+		int list;
+		if (outDegree[v] == 0) {
+			list = 0;
+		} else if (inDegree[v] == 0) {
+			list = 1;
+		} else {
+			list = 2 + maxDegree + outDegree[v] - inDegree[v];
+			maxBucket = Math.max(maxBucket, list);
+		}
+		listOf[v] = list;
+		previous[v] = NONE;
+		next[v] = head[list];
+		if (head[list] != NONE) {
+			previous[head[list]] = v;
+		}
+		head[list] = v;
+	}
+
+	private void unlink(int v) {
+		int list = listOf[v];
+		if (list == NONE) {
+			return;
+		}
+		if (previous[v] != NONE) {
+			next[previous[v]] = next[v];
+		} else {
+			head[list] = next[v];
+		}
+		if (next[v] != NONE) {
+			previous[next[v]] = previous[v];
+		}
+		listOf[v] = NONE;
+	}
+
+	static <V, E> Set<Edge<V, E>> of(Loop<V, E> loop) {
+		Map<V, Integer> index = new HashMap<>();
+		for (V v : loop.vertexSet()) {
+			index.put(v, index.size());
+		}
+		List<Edge<V, E>> edges = new ArrayList<>(loop.edges());
+		int[] source = new int[edges.size()];
+		int[] target = new int[edges.size()];
+		for (int e = 0; e < edges.size(); e++) {
+			source[e] = index.get(edges.get(e).start());
+			target[e] = index.get(edges.get(e).end());
+		}
+
+		int[] position = new FeedbackArcSet(index.size(), source, target).order();
+
+		Set<Edge<V, E>> ret = new LinkedHashSet<>();
+		for (int e = 0; e < edges.size(); e++) {
+			if (position[source[e]] >= position[target[e]]) {
+				ret.add(edges.get(e));
+			}
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+}
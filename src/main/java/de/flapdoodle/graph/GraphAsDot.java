@@ -22,7 +22,19 @@ import org.immutables.value.Value.Auxiliary;
 import org.immutables.value.Value.Default;
 import org.jgrapht.Graph;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -30,6 +42,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Value.Immutable
 public abstract class GraphAsDot<T> {
@@ -72,32 +85,205 @@ public abstract class GraphAsDot<T> {
 	@Auxiliary
 	public <E> String asDot(Graph<T, E> graph) {
 		StringBuilder sb = new StringBuilder();
+		render(graph, sb);
+		return sb.toString();
+	}
+
+	@Auxiliary
+	public <E> String parallelAsDot(Graph<T, E> graph) {
+		return parallelAsDot(ForkJoinPool.commonPool(), graph);
+	}
+
+	/**
+	 * renders each cluster into its own buffer on the given pool, the result is the same as {@link #asDot(Graph)}
+	 * (cluster ids included), callbacks are still applied at most once per vertex but may be called from any thread
+	 */
+	@Auxiliary
+	public <E> String parallelAsDot(ForkJoinPool pool, Graph<T, E> graph) {
+		StringBuilder sb = new StringBuilder();
+		render(graph, sb, pool);
+		return sb.toString();
+	}
+
+	@Auxiliary
+	public <E> void asDot(Graph<T, E> graph, Appendable out) throws IOException {
+		try {
+			render(graph, out);
+		}
+		catch (UncheckedIOException ux) {
+			throw ux.getCause();
+		}
+	}
+
+	@Auxiliary
+	public <E> void writeTo(Graph<T, E> graph, Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			writeTo(graph, out);
+		}
+	}
+
+	@Auxiliary
+	public <E> void writeGzipTo(Graph<T, E> graph, Path path) throws IOException {
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+			writeTo(graph, out);
+		}
+	}
+
+	private <E> void writeTo(Graph<T, E> graph, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		asDot(graph, writer);
+		writer.flush();
+	}
 
-		sb.append("digraph \"").append(label()).append("\" {\n")
+	private <E> void render(Graph<T, E> graph, Appendable out) {
+		render(graph, out, null);
+	}
+
+	/**
+	 * renders in the calling thread if pool is null
+	 */
+	private <E> void render(Graph<T, E> graph, Appendable out, ForkJoinPool pool) {
+		GraphMetrics metrics = Metrics.listener();
+		if (metrics == null) {
+			renderGraph(graph, out, pool);
+		} else {
+			Metrics.measure(metrics, pool == null ? "asDot" : "parallelAsDot", graph, () -> {
+				renderGraph(graph, out, pool);
+				return out;
+			});
+		}
+	}
+
+	private <E> void renderGraph(Graph<T, E> graph, Appendable out, ForkJoinPool pool) {
+		Context<T> context = new Context<>(this, out, pool != null);
+
+		context.append("digraph \"").append(label()).append("\" {\n")
 			.append("	rankdir=LR;\n")
 			.append("\n");
 
-		Context<T> context = new Context<>(this, sb);
-		render(context.render(graph, 1));
+		Context<T>.Render<E> rootRender = context.render(graph, 1);
+		if (pool == null) {
+			render(rootRender);
+		} else {
+			rootRender.prepareClusters();
+			pool.invoke(context.new RenderCluster(rootRender, () -> render(rootRender)));
+			rootRender.segments.writeTo(context);
+		}
 
-		sb.append("}\n");
-		return sb.toString();
+		context.append("}\n");
 	}
 
 	private static class Context<T> {
 		private final GraphAsDot<T> root;
-		private final StringBuilder sb;
+		private final Appendable out;
 		private final AtomicInteger clusterCounter = new AtomicInteger();
+		private final Map<T, VertexInfo<T>> vertexInfo;
 
-		public Context(GraphAsDot<T> root, StringBuilder sb) {
+		public Context(GraphAsDot<T> root, Appendable out, boolean concurrent) {
 			this.root = root;
-			this.sb = sb;
+			this.out = out;
+			this.vertexInfo = concurrent
+				? Collections.synchronizedMap(new HashMap<>())
+				: new HashMap<>();
+		}
+
+		private VertexInfo<T> infoOf(T vertex) {
+			return vertexInfo.computeIfAbsent(vertex, v -> new VertexInfo<>());
+		}
+
+		private String idOf(T vertex) {
+			VertexInfo<T> info = infoOf(vertex);
+			synchronized (info) {
+				if (info.id == null) {
+					info.id = root.nodeAsId().apply(vertex);
+				}
+				return info.id;
+			}
+		}
+
+		private String labelOf(T vertex) {
+			VertexInfo<T> info = infoOf(vertex);
+			synchronized (info) {
+				if (info.label == null) {
+					info.label = root.nodeAsLabel() == root.nodeAsId()
+						? idOf(vertex)
+						: root.nodeAsLabel().apply(vertex);
+				}
+				return info.label;
+			}
+		}
+
+		private Map<String, String> attributesOf(T vertex) {
+			VertexInfo<T> info = infoOf(vertex);
+			synchronized (info) {
+				if (info.attributes == null) {
+					info.attributes = root.nodeAttributes().apply(vertex);
+				}
+				return info.attributes;
+			}
+		}
+
+		private Optional<SubGraph<T>> subGraphOf(T vertex) {
+			VertexInfo<T> info = infoOf(vertex);
+			synchronized (info) {
+				if (info.subGraph == null) {
+					info.subGraph = root.subGraph().apply(vertex);
+				}
+				return info.subGraph;
+			}
+		}
+
+		/**
+		 * sortedBy is applied once per vertex, nested renders share the key
+		 * <p>
+		 * sortedBy returns a raw Comparable, so the keys are compared to each other unchecked
+		 */
+		@SuppressWarnings("unchecked")
+		private Comparable<Object> sortKeyOf(T vertex) {
+			VertexInfo<T> info = infoOf(vertex);
+			synchronized (info) {
+				if (info.sortKey == null) {
+					info.sortKey = (Comparable<Object>) root.sortedBy().get().apply(vertex);
+				}
+				return info.sortKey;
+			}
+		}
+
+		private Context<T> append(CharSequence content) {
+			try {
+				out.append(content);
+			}
+			catch (IOException iox) {
+				throw new UncheckedIOException(iox);
+			}
+			return this;
 		}
 
 		public <E> Render<E> render(Graph<T, E> graph, int level) {
 			return new Render<>(this, graph, level, "");
 		}
 
+		/**
+		 * runs body and waits for the clusters it forked
+		 */
+		private class RenderCluster extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final Render<?> render;
+			private final Runnable body;
+
+			private RenderCluster(Render<?> render, Runnable body) {
+				this.render = render;
+				this.body = body;
+			}
+
+			@Override
+			protected void compute() {
+				body.run();
+				render.forked.forEach(ForkJoinTask::join);
+			}
+		}
+
 		private class Render<E> {
 
 			private final Context<T> context;
@@ -109,6 +295,13 @@ public abstract class GraphAsDot<T> {
 			private final String clusterPrefix;
 			private final String indent;
 
+			// set by prepareClusters, parallel rendering only
+			private Map<T, Render<?>> clusters;
+			private Segments segments;
+			private List<ForkJoinTask<?>> forked;
+
+			private List<T> sortedVertices;
+
 			private Render(
 				Context<T> context,
 				Graph<T, E> graph,
@@ -123,7 +316,7 @@ public abstract class GraphAsDot<T> {
 				this.indent = String.join("", Collections.nCopies(level, "\t"));
 
 				List<Vertex2SubGraph<T>> subGraphs = graph.vertexSet().stream()
-					.flatMap(v -> context.root.subGraph().apply(v)
+					.flatMap(v -> context.subGraphOf(v)
 						.map(Stream::of)
 						.orElse(Stream.empty())
 						.map(sub -> new Vertex2SubGraph<>(v, sub)))
@@ -141,14 +334,33 @@ public abstract class GraphAsDot<T> {
 					.collect(Collectors.toMap(v -> v.vertex, v -> v.vertexInSubGraph));
 			}
 
+			/**
+			 * creates all nested renders up front in the same order as serial rendering, so cluster ids do not change
+			 */
+			private void prepareClusters() {
+				clusters = new IdentityHashMap<>();
+				segments = new Segments();
+				forked = new ArrayList<>();
+				forEachVertex(v -> newSubGraph(v).ifPresent(sub -> {
+					clusters.put(v, sub);
+					sub.prepareClusters();
+				}));
+			}
+
 			public Optional<Render<?>> subGraph(T v) {
-				Optional<SubGraph<T>> subGraph = context.root.subGraph().apply(v);
+				return clusters != null
+					? Optional.ofNullable(clusters.get(v))
+					: newSubGraph(v);
+			}
+
+			private Optional<Render<?>> newSubGraph(T v) {
+				Optional<SubGraph<T>> subGraph = context.subGraphOf(v);
 				return subGraph.map(sg -> subGraph(sg.graph(), clusterPrefix(v)));
 			}
 
 			private String clusterPrefix(T cluster) {
 				String separator = context.root.subGraphIdSeparator();
-				String localPrefix = context.root.nodeAsId().apply(cluster);
+				String localPrefix = context.idOf(cluster);
 				return clusterPrefix.isEmpty() ? localPrefix+separator : clusterPrefix+localPrefix+separator;
 			}
 
@@ -156,36 +368,53 @@ public abstract class GraphAsDot<T> {
 				return new Render<>(context, subGraph, level + 1, prefix);
 			}
 
+			public void renderCluster(Render<?> cluster, Runnable body) {
+				if (segments == null) {
+					body.run();
+				} else {
+					segments.insert(cluster.segments);
+					forked.add(new RenderCluster(cluster, body).fork());
+				}
+			}
+
+			private Render<E> append(CharSequence content) {
+				if (segments == null) {
+					context.append(content);
+				} else {
+					segments.current.append(content);
+				}
+				return this;
+			}
+
 			public void newLine() {
-				sb.append("\n");
+				append("\n");
 			}
 
 			public Render<E> line(String content) {
-				sb.append(indent).append(content).append("\n");
+				append(indent).append(content).append("\n");
 				return this;
 			}
 
 			public void forEachEdge(BiConsumer<T, T> onEdge) {
-				Consumer<E> edgeConsumer = edge -> {
-					T start = graph.getEdgeSource(edge);
-					T end = graph.getEdgeTarget(edge);
-					onEdge.accept(start, end);
-				};
-
 				if (root.sortedBy().isPresent()) {
-					graph.edgeSet().stream()
-						.sorted(new MappingEdgeComparator<>(graph, root.sortedBy().get()))
-						.forEach(edgeConsumer);
+					List<SortedEdge<T>> edges = new ArrayList<>(graph.edgeSet().size());
+					for (E edge : graph.edgeSet()) {
+						T start = graph.getEdgeSource(edge);
+						T end = graph.getEdgeTarget(edge);
+						edges.add(new SortedEdge<>(context.sortKeyOf(start), context.sortKeyOf(end), start, end));
+					}
+					edges.sort(null);
+					edges.forEach(edge -> onEdge.accept(edge.start, edge.end));
 				} else graph.edgeSet()
-					.forEach(edgeConsumer);
+					.forEach(edge -> onEdge.accept(graph.getEdgeSource(edge), graph.getEdgeTarget(edge)));
 			}
 
 			public boolean isNoSubGraph(T vertex) {
-				return !context.root.subGraph().apply(vertex).isPresent();
+				return !context.subGraphOf(vertex).isPresent();
 			}
 
 			private Render<E> connection(T a, T b) {
-				renderConnection(clusterPrefix+root.nodeAsId().apply(a), clusterPrefix+root.nodeAsId().apply(b), root.edgeAttributes().apply(a, b), sb);
+				renderConnection(clusterPrefix+context.idOf(a), clusterPrefix+context.idOf(b), root.edgeAttributes().apply(a, b));
 				return this;
 			}
 
@@ -200,33 +429,45 @@ public abstract class GraphAsDot<T> {
 				VertexInSubGraph<T> innerB = outerVertexToInnerVertexMap.get(b);
 
 				if (innerA != null) {
-					String aId=clusterPrefix+root.nodeAsId().apply(a);
-					String innerAId=clusterPrefix(innerA.parent)+root.nodeAsId().apply(innerA.vertex);
-					renderConnection(aId, innerAId, root.edgeAttributes().apply(a, innerA.vertex), sb);
+					String aId=clusterPrefix+context.idOf(a);
+					String innerAId=clusterPrefix(innerA.parent)+context.idOf(innerA.vertex);
+					renderConnection(aId, innerAId, root.edgeAttributes().apply(a, innerA.vertex));
 				}
 				if (innerB != null) {
-					String innerBId=clusterPrefix(innerB.parent)+root.nodeAsId().apply(innerB.vertex);
-					String bId=clusterPrefix+root.nodeAsId().apply(b);
+					String innerBId=clusterPrefix(innerB.parent)+context.idOf(innerB.vertex);
+					String bId=clusterPrefix+context.idOf(b);
 
-					renderConnection(innerBId, bId, root.edgeAttributes().apply(innerB.vertex, b), sb);
+					renderConnection(innerBId, bId, root.edgeAttributes().apply(innerB.vertex, b));
 				}
 				if (innerA==null && innerB==null) throw new IllegalArgumentException("could not find mapping for "+a+" or "+b+" in "+outerVertexToInnerVertexMap);
 			}
 
 			public void forEachVertex(Consumer<T> onVertex) {
 				if (root.sortedBy().isPresent()) {
-					graph.vertexSet().stream()
-						.sorted(new MappingComparator<>(root.sortedBy().get()))
-						.forEach(onVertex);
+					sortedVertices().forEach(onVertex);
 				} else
 					graph.vertexSet()
 						.forEach(onVertex);
 			}
 
+			private List<T> sortedVertices() {
+				if (sortedVertices == null) {
+					List<SortedVertex<T>> vertices = new ArrayList<>(graph.vertexSet().size());
+					for (T vertex : graph.vertexSet()) {
+						vertices.add(new SortedVertex<>(context.sortKeyOf(vertex), vertex));
+					}
+					vertices.sort(null);
+					List<T> sorted = new ArrayList<>(vertices.size());
+					vertices.forEach(it -> sorted.add(it.vertex));
+					sortedVertices = sorted;
+				}
+				return sortedVertices;
+			}
+
 			public void renderNode(T v) {
-				String id = clusterPrefix + context.root.nodeAsId().apply(v);
-				String label = context.root.nodeAsLabel().apply(v);
-				Map<String, String> attributes = context.root.nodeAttributes().apply(v);
+				String id = clusterPrefix + context.idOf(v);
+				String label = context.labelOf(v);
+				Map<String, String> attributes = context.attributesOf(v);
 				line(quote(id) + asNodeAttributes(id.equals(label) ? attributes : withLabel(attributes, label)) + ";");
 			}
 
@@ -238,9 +479,9 @@ public abstract class GraphAsDot<T> {
 				return copy;
 			}
 
-			private void renderConnection(String a, String b, Map<String, String> edgeAttributes, StringBuilder sb) {
-				sb.append(indent);
-				sb.append(quote(a))
+			private void renderConnection(String a, String b, Map<String, String> edgeAttributes) {
+				append(indent);
+				append(quote(a))
 					.append(" -> ")
 					.append(quote(b))
 					.append(asNodeAttributes(edgeAttributes)).append(";\n");
@@ -258,9 +499,12 @@ public abstract class GraphAsDot<T> {
 		context.forEachVertex(v -> {
 			Optional<Context<T>.Render<?>> subContext = context.subGraph(v);
 			if (subContext.isPresent()) {
-				context.line("subgraph cluster_" + subContext.get().clusterId + " {");
-				subContext.get().line("label = "+quote(context.context.root.nodeAsLabel().apply(v))+";");
-				render(subContext.get());
+				Context<T>.Render<?> sub = subContext.get();
+				context.line("subgraph cluster_" + sub.clusterId + " {");
+				context.renderCluster(sub, () -> {
+					sub.line("label = "+quote(context.context.labelOf(v))+";");
+					render(sub);
+				});
 				context.line("}");
 			} else {
 				context.renderNode(v);
@@ -300,6 +544,42 @@ public abstract class GraphAsDot<T> {
 		}
 	}
 
+	/**
+	 * output of one render, nested clusters are kept as placeholders until they are written
+	 */
+	private static final class Segments {
+		private final List<Object> parts = new ArrayList<>();
+		private StringBuilder current = new StringBuilder();
+
+		private void insert(Segments nested) {
+			parts.add(current);
+			parts.add(nested);
+			current = new StringBuilder();
+		}
+
+		private void writeTo(Context<?> context) {
+			for (Object part : parts) {
+				if (part instanceof Segments) {
+					((Segments) part).writeTo(context);
+				} else {
+					context.append((CharSequence) part);
+				}
+			}
+			context.append(current);
+		}
+	}
+
+	/**
+	 * user callbacks are applied at most once per vertex and render
+	 */
+	private static final class VertexInfo<T> {
+		private String id;
+		private String label;
+		private Map<String, String> attributes;
+		private Optional<SubGraph<T>> subGraph;
+		private Comparable<Object> sortKey;
+	}
+
 	private static final class Vertex2SubGraph<T> {
 		private final T vertext;
 		private final SubGraph<T> subGraph;
@@ -347,37 +627,40 @@ public abstract class GraphAsDot<T> {
 		
 	}
 
-	private static class MappingComparator<T, C extends Comparable<C>> implements Comparator<T> {
-
-		private final Function<T, C> mapping;
+	private static final class SortedVertex<T> implements Comparable<SortedVertex<T>> {
+		private final Comparable<Object> key;
+		private final T vertex;
 
-		private MappingComparator(Function<T, C> mapping) {
-			this.mapping = mapping;
+		private SortedVertex(Comparable<Object> key, T vertex) {
+			this.key = key;
+			this.vertex = vertex;
 		}
 
 		@Override
-		public int compare(T first, T second) {
-			return mapping.apply(first).compareTo(mapping.apply(second));
+		public int compareTo(SortedVertex<T> other) {
+			return key.compareTo(other.key);
 		}
 	}
 
-	private static class MappingEdgeComparator<T, E, C extends Comparable<C>> implements Comparator<E> {
-
-		private final Graph<T, E> graph;
-		private final MappingComparator<T, C> comparator;
-
-		public MappingEdgeComparator(Graph<T, E> graph, Function<T, C> asComparable) {
-			this.graph = graph;
-			this.comparator = new MappingComparator<>(asComparable);
+	private static final class SortedEdge<T> implements Comparable<SortedEdge<T>> {
+		private final Comparable<Object> startKey;
+		private final Comparable<Object> endKey;
+		private final T start;
+		private final T end;
+
+		private SortedEdge(Comparable<Object> startKey, Comparable<Object> endKey, T start, T end) {
+			this.startKey = startKey;
+			this.endKey = endKey;
+			this.start = start;
+			this.end = end;
 		}
 
 		@Override
-		public int compare(E first, E second) {
-			int compareFirst = comparator.compare(graph.getEdgeSource(first), graph.getEdgeSource(second));
-
-			return compareFirst == 0
-				? comparator.compare(graph.getEdgeTarget(first), graph.getEdgeTarget(second))
-				: compareFirst;
+		public int compareTo(SortedEdge<T> other) {
+			int compareStart = startKey.compareTo(other.startKey);
+			return compareStart == 0
+				? endKey.compareTo(other.endKey)
+				: compareStart;
 		}
 	}
 }
@@ -16,6 +16,9 @@
  */
 package de.flapdoodle.graph;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
@@ -57,6 +60,34 @@ public class GraphBuilder<V, E, G extends Graph<V, E>> {
 		return this;
 	}
 
+	public GraphBuilder<V, E, G> addVertices(Collection<? extends V> vertices) {
+		for (V v : vertices) {
+			graph.addVertex(v);
+		}
+		return this;
+	}
+
+	/**
+	 * adds each edge with its vertices, missing vertices are added in edge order
+	 */
+	public GraphBuilder<V, E, G> addEdges(Iterable<? extends Edge<V, E>> edges) {
+		for (Edge<V, E> edge : edges) {
+			addEdgeWithVertices(edge);
+		}
+		return this;
+	}
+
+	public GraphBuilder<V, E, G> addEdges(Stream<? extends Edge<V, E>> edges) {
+		edges.forEachOrdered(this::addEdgeWithVertices);
+		return this;
+	}
+
+	private void addEdgeWithVertices(Edge<V, E> edge) {
+		graph.addVertex(edge.start());
+		graph.addVertex(edge.end());
+		graph.addEdge(edge.start(), edge.end(), edge.edge());
+	}
+
 	@SuppressWarnings("unchecked")
 	public GraphBuilder<V, E, G> addEdgeChain(V a, V b, V... other) {
 		addVertices(a, b, other);
@@ -81,4 +112,11 @@ public class GraphBuilder<V, E, G extends Graph<V, E>> {
 	public static <V, E> GraphBuilder<V, E, DefaultDirectedGraph<V, E>> withDirectedGraph(Class<E> edgeType) {
 		return new GraphBuilder<>(Graphs.Directed.newInstance(edgeType));
 	}
+
+	/**
+	 * for bulk loads of a known size, vertices and edges are added without rehashing
+	 */
+	public static <V, E> GraphBuilder<V, E, PresizedDirectedGraph<V, E>> withDirectedGraph(Class<E> edgeType, int expectedVertices, int expectedEdges) {
+		return new GraphBuilder<>(new PresizedDirectedGraph<>(edgeType, expectedVertices, expectedEdges));
+	}
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+import org.jgrapht.Graph;
+
+/**
+ * runs a task for each vertex, a vertex is started as soon as all vertices with an edge to it are done
+ * (same direction as {@link Graphs#rootsOf(Graph)}), independent vertices run in parallel on the given executor
+ * <p>
+ * vertices of a {@link Loop} have no valid order, the {@link LoopPolicy} decides how they are run.
+ * <p>
+ * the returned future fails with the first exception thrown by a task, no further tasks are started after a failure
+ * or after the future was cancelled. Tasks already running are not interrupted.
+ * <p>
+ * the graph structure is captured when the executor is created.
+ */
+public final class GraphExecutor<V> {
+
+	public enum LoopPolicy {
+		/**
+		 * graphs with loops are rejected
+		 */
+		FAIL,
+		/**
+		 * all vertices of a loop are run one after the other in graph order
+		 */
+		SEQUENTIAL,
+		/**
+		 * all vertices of a loop are run in parallel
+		 */
+		PARALLEL
+	}
+
+	private final IndexedGraph<V, ?> graph;
+	private final StronglyConnectedComponents components;
+	private final Executor executor;
+	private final LoopPolicy loopPolicy;
+
+	private final int[] successorOffsets;
+	private final int[] successors;
+	private final int[] predecessorCount;
+
+	private GraphExecutor(IndexedGraph<V, ?> graph, Executor executor, LoopPolicy loopPolicy) {
+		this.graph = graph;
+		this.components = StronglyConnectedComponents.of(graph);
+		this.executor = executor;
+		this.loopPolicy = loopPolicy;
+
+		int count = components.count();
+		if (loopPolicy == LoopPolicy.FAIL) {
+			for (int c = 0; c < count; c++) {
+				if (components.isCyclic(c)) {
+					throw new IllegalArgumentException("graph contains loops: " + components.loops(graph));
+				}
+			}
+		}
+
+		this.successorOffsets = new int[count + 1];
+		this.successors = components.condensedSuccessors(graph, successorOffsets);
+		this.predecessorCount = new int[count];
+		for (int s : successors) {
+			predecessorCount[s]++;
+		}
+	}
+
+	public CompletableFuture<Void> execute(Consumer<? super V> task) {
+		return new Execution(task).start();
+	}
+
+	private class Execution {
+		private final Consumer<? super V> task;
+		private final CompletableFuture<Void> result = new CompletableFuture<>();
+		private final AtomicIntegerArray pending = new AtomicIntegerArray(predecessorCount);
+		private final AtomicInteger remaining = new AtomicInteger(components.count());
+		private final ThreadLocal<Deque<Runnable>> inline = new ThreadLocal<>();
+
+		private Execution(Consumer<? super V> task) {
+			this.task = task;
+		}
+
+		private CompletableFuture<Void> start() {
+			if (components.count() == 0) {
+				result.complete(null);
+			}
+			// highest component ids have no predecessors
+			for (int c = components.count() - 1; c >= 0; c--) {
+				if (predecessorCount[c] == 0) {
+					submit(c);
+				}
+			}
+			return result;
+		}
+
+		private void submit(int component) {
+			submit(() -> run(component));
+		}
+
+		private void submit(Runnable runnable) {
+			try {
+				executor.execute(() -> runQueued(runnable));
+			}
+			catch (RejectedExecutionException rx) {
+				result.completeExceptionally(rx);
+			}
+		}
+
+		/**
+		 * an executor may run a task in the calling thread (direct executor, CallerRunsPolicy), such a task is
+		 * queued and run by the outer task after it is done, so the stack does not grow with each finished component
+		 */
+		private void runQueued(Runnable runnable) {
+			Deque<Runnable> queue = inline.get();
+			if (queue != null) {
+				queue.add(runnable);
+				return;
+			}
+			queue = new ArrayDeque<>();
+			inline.set(queue);
+			try {
+				Runnable next = runnable;
+				while (next != null) {
+					next.run();
+					next = queue.poll();
+				}
+			}
+			finally {
+				inline.remove();
+			}
+		}
+
+		private void run(int component) {
+			if (result.isDone()) {
+				return;
+			}
+			if (components.isCyclic(component) && loopPolicy == LoopPolicy.PARALLEL) {
+				runParallel(component);
+			} else {
+				try {
+					for (int i = 0; i < components.size(component); i++) {
+						task.accept(graph.vertex(components.member(component, i)));
+					}
+				}
+				catch (RuntimeException | Error ex) {
+					result.completeExceptionally(ex);
+					return;
+				}
+				done(component);
+			}
+		}
+
+		private void runParallel(int component) {
+			int size = components.size(component);
+			AtomicInteger running = new AtomicInteger(size);
+			for (int i = 0; i < size; i++) {
+				V vertex = graph.vertex(components.member(component, i));
+				submit(() -> {
+					if (result.isDone()) {
+						return;
+					}
+					try {
+						task.accept(vertex);
+					}
+					catch (RuntimeException | Error ex) {
+						result.completeExceptionally(ex);
+						return;
+					}
+					if (running.decrementAndGet() == 0) {
+						done(component);
+					}
+				});
+			}
+		}
+
+		private void done(int component) {
+			if (remaining.decrementAndGet() == 0) {
+				result.complete(null);
+			}
+			for (int i = successorOffsets[component]; i < successorOffsets[component + 1]; i++) {
+				int successor = successors[i];
+				if (pending.decrementAndGet(successor) == 0) {
+					submit(successor);
+				}
+			}
+		}
+	}
+
+	public static <V> GraphExecutor<V> of(Graph<V, ?> graph, Executor executor) {
+		return of(graph, executor, LoopPolicy.FAIL);
+	}
+
+	public static <V> GraphExecutor<V> of(Graph<V, ?> graph, Executor executor, LoopPolicy loopPolicy) {
+		return new GraphExecutor<>(IndexedGraph.of(graph), executor, loopPolicy);
+	}
+}
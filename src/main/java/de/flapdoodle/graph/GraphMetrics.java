@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.immutables.value.Value;
+import org.immutables.value.Value.Default;
+
+/**
+ * listener for timings and sizes of {@link Graphs} operations and {@link GraphAsDot} rendering
+ * <p>
+ * there is one listener per class loader, nothing is measured while no listener is installed
+ */
+public interface GraphMetrics {
+
+	void record(Measurement measurement);
+
+	@Value.Immutable
+	interface Measurement {
+		String operation();
+
+		long durationNanos();
+
+		int vertexCount();
+
+		int edgeCount();
+
+		@Default
+		default int layerCount() {
+			return 0;
+		}
+
+		@Default
+		default int loopCount() {
+			return 0;
+		}
+
+		/**
+		 * heap bytes of the index and working arrays the operation allocated, computed from
+		 * their lengths, 0 if there are none
+		 */
+		@Default
+		default long estimatedBytes() {
+			return 0L;
+		}
+	}
+
+	static void install(GraphMetrics metrics) {
+		Metrics.install(metrics);
+	}
+
+	static void uninstall() {
+		Metrics.install(null);
+	}
+}
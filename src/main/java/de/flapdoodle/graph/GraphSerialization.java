@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+
+/**
+ * compact binary format for graphs and layering results
+ * <p>
+ * vertices are written once with a {@link VertexCodec} and referenced by varint ids,
+ * graph edges are stored as compressed adjacency (outgoing edges per vertex). edges
+ * are not encoded, they are created by the graph on read, so edges come back grouped
+ * by source vertex and layers can only be read against a graph containing their edges,
+ * with at most one edge between two vertices
+ */
+public final class GraphSerialization {
+
+	private static final int MAGIC = 0x46475246;
+	private static final int VERSION = 1;
+	private static final int KIND_GRAPH = 1;
+	private static final int KIND_LAYERS = 2;
+	private static final int FLAG_WEIGHTED = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private GraphSerialization() {
+		// no instance
+	}
+
+	public static <V, E> void writeGraph(Graph<V, E> graph, VertexCodec<? super V> codec, WritableByteChannel channel) throws IOException {
+		IndexedGraph<V, E> indexed = IndexedGraph.of(graph);
+		boolean weighted = graph.getType().isWeighted();
+
+		BinaryOutput out = new BinaryOutput(channel, BUFFER_SIZE);
+		writeHeader(out, KIND_GRAPH, weighted ? FLAG_WEIGHTED : 0);
+		writeVertices(out, indexed.vertices(), codec);
+
+		out.writeVarint(indexed.edgeCount());
+		for (int v = 0; v < indexed.vertexCount(); v++) {
+			out.writeVarint(indexed.outDegree(v));
+			for (int i = 0; i < indexed.outDegree(v); i++) {
+				int e = indexed.outEdge(v, i);
+				out.writeVarint(indexed.target(e));
+				if (weighted) {
+					out.writeDouble(graph.getEdgeWeight(indexed.edge(e)));
+				}
+			}
+		}
+		out.flush();
+	}
+
+	public static <V, E> DefaultDirectedGraph<V, E> readGraph(ReadableByteChannel channel, VertexCodec<? extends V> codec,
+		Supplier<DefaultDirectedGraph<V, E>> graphFactory) throws IOException {
+		return readGraph(BinaryInput.readFully(channel), codec, graphFactory);
+	}
+
+	/**
+	 * reads a graph from a memory mapped file
+	 */
+	public static <V, E> DefaultDirectedGraph<V, E> readGraph(Path path, VertexCodec<? extends V> codec,
+		Supplier<DefaultDirectedGraph<V, E>> graphFactory) throws IOException {
+		return readGraph(new BinaryInput(map(path)), codec, graphFactory);
+	}
+
+	private static <V, E> DefaultDirectedGraph<V, E> readGraph(BinaryInput in, VertexCodec<? extends V> codec,
+		Supplier<DefaultDirectedGraph<V, E>> graphFactory) throws IOException {
+		int flags = readHeader(in, KIND_GRAPH);
+		List<V> vertices = readVertices(in, codec);
+
+		DefaultDirectedGraph<V, E> ret = graphFactory.get();
+		boolean weighted = (flags & FLAG_WEIGHTED) != 0;
+		if (weighted && !ret.getType().isWeighted()) {
+			throw new IllegalArgumentException("graph is weighted, but graph factory creates unweighted graphs");
+		}
+		vertices.forEach(ret::addVertex);
+
+		int edgeCount = in.readVarint();
+		int readEdges = 0;
+		for (V source : vertices) {
+			int outDegree = in.readVarint();
+			for (int i = 0; i < outDegree; i++) {
+				V target = vertexOf(vertices, in.readVarint());
+				E edge = ret.addEdge(source, target);
+				if (edge == null) {
+					throw new IllegalArgumentException("graph factory creates graphs without edge " + source + " -> " + target
+						+ ", multiple edges or self loops are not allowed");
+				}
+				if (weighted) {
+					ret.setEdgeWeight(edge, in.readDouble());
+				}
+				readEdges++;
+			}
+		}
+		if (readEdges != edgeCount) {
+			throw new IOException("expected " + edgeCount + " edges, but got " + readEdges);
+		}
+		return ret;
+	}
+
+	/**
+	 * edges are written as vertex pairs, so layers with more than one edge between the same vertices are rejected
+	 */
+	public static <V, E> void writeLayers(List<? extends VerticesAndEdges<V, E>> layers, VertexCodec<? super V> codec,
+		WritableByteChannel channel) throws IOException {
+		List<V> vertices = new ArrayList<>();
+		Map<V, Integer> vertexIndex = new HashMap<>();
+		layers.forEach(layer -> layer.vertices().forEach(v -> {
+			if (vertexIndex.putIfAbsent(v, vertices.size()) == null) {
+				vertices.add(v);
+			}
+		}));
+
+		BinaryOutput out = new BinaryOutput(channel, BUFFER_SIZE);
+		writeHeader(out, KIND_LAYERS, 0);
+		writeVertices(out, vertices, codec);
+
+		Set<Long> writtenEdges = new HashSet<>();
+		out.writeVarint(layers.size());
+		for (VerticesAndEdges<V, E> layer : layers) {
+			out.writeVarint(layer.vertices().size());
+			for (V v : layer.vertices()) {
+				out.writeVarint(vertexIndex.get(v));
+			}
+			writeEdges(out, layer.edges(), vertexIndex, writtenEdges);
+			out.writeVarint(layer.loops().size());
+			for (Loop<V, E> loop : layer.loops()) {
+				writeEdges(out, loop.edges(), vertexIndex, writtenEdges);
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * @param graph used to look up the edges between layer vertices, must not contain more than one edge between two vertices
+	 */
+	public static <V, E> List<VerticesAndEdges<V, E>> readLayers(ReadableByteChannel channel, VertexCodec<? extends V> codec,
+		Graph<V, E> graph) throws IOException {
+		return readLayers(BinaryInput.readFully(channel), codec, graph);
+	}
+
+	/**
+	 * reads layers from a memory mapped file
+	 */
+	public static <V, E> List<VerticesAndEdges<V, E>> readLayers(Path path, VertexCodec<? extends V> codec,
+		Graph<V, E> graph) throws IOException {
+		return readLayers(new BinaryInput(map(path)), codec, graph);
+	}
+
+	private static <V, E> List<VerticesAndEdges<V, E>> readLayers(BinaryInput in, VertexCodec<? extends V> codec,
+		Graph<V, E> graph) throws IOException {
+		readHeader(in, KIND_LAYERS);
+		List<V> vertices = readVertices(in, codec);
+
+		int layerCount = in.readVarint();
+		List<VerticesAndEdges<V, E>> ret = new ArrayList<>(layerCount);
+		for (int l = 0; l < layerCount; l++) {
+			ImmutableVerticesAndEdges.Builder<V, E> builder = ImmutableVerticesAndEdges.builder();
+			int vertexCount = in.readVarint();
+			for (int i = 0; i < vertexCount; i++) {
+				builder.addVertices(vertexOf(vertices, in.readVarint()));
+			}
+			builder.addAllEdges(readEdges(in, vertices, graph));
+			int loopCount = in.readVarint();
+			for (int i = 0; i < loopCount; i++) {
+				builder.addLoops(ImmutableLoop.<V, E>builder()
+					.addAllEdges(readEdges(in, vertices, graph))
+					.build());
+			}
+			ret.add(builder.build());
+		}
+		return Collections.unmodifiableList(ret);
+	}
+
+	private static <V, E> void writeEdges(BinaryOutput out, Set<Edge<V, E>> edges, Map<V, Integer> vertexIndex, Set<Long> writtenEdges) throws IOException {
+		out.writeVarint(edges.size());
+		for (Edge<V, E> edge : edges) {
+			int start = indexOf(vertexIndex, edge.start());
+			int end = indexOf(vertexIndex, edge.end());
+			if (!writtenEdges.add(((long) start << 32) | end)) {
+				throw new IllegalArgumentException("more than one edge " + edge.start() + " -> " + edge.end() + ", multiple edges are not supported");
+			}
+			out.writeVarint(start);
+			out.writeVarint(end);
+		}
+	}
+
+	private static <V, E> List<Edge<V, E>> readEdges(BinaryInput in, List<V> vertices, Graph<V, E> graph) throws IOException {
+		int edgeCount = in.readVarint();
+		boolean multipleEdges = graph.getType().isAllowingMultipleEdges();
+		List<Edge<V, E>> ret = new ArrayList<>(edgeCount);
+		for (int i = 0; i < edgeCount; i++) {
+			V start = vertexOf(vertices, in.readVarint());
+			V end = vertexOf(vertices, in.readVarint());
+			E edge = graph.getEdge(start, end);
+			if (edge == null) {
+				throw new IllegalArgumentException("no edge " + start + " -> " + end + " in graph");
+			}
+			if (multipleEdges && graph.getAllEdges(start, end).size() > 1) {
+				throw new IllegalArgumentException("more than one edge " + start + " -> " + end + " in graph, multiple edges are not supported");
+			}
+			ret.add(ImmutableEdge.of(start, end, edge));
+		}
+		return ret;
+	}
+
+	private static void writeHeader(BinaryOutput out, int kind, int flags) throws IOException {
+		out.writeInt(MAGIC)
+			.writeByte(VERSION)
+			.writeByte(kind)
+			.writeByte(flags);
+	}
+
+	private static int readHeader(BinaryInput in, int kind) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("not a graph file");
+		}
+		int version = in.readByte();
+		if (version != VERSION) {
+			throw new IOException("unsupported version: " + version);
+		}
+		int readKind = in.readByte();
+		if (readKind != kind) {
+			throw new IOException("expected kind " + kind + ", but got " + readKind);
+		}
+		return in.readByte();
+	}
+
+	private static <V> void writeVertices(BinaryOutput out, List<V> vertices, VertexCodec<? super V> codec) throws IOException {
+		out.writeVarint(vertices.size());
+		for (V v : vertices) {
+			out.writeBytes(codec.encode(v));
+		}
+	}
+
+	private static <V> List<V> readVertices(BinaryInput in, VertexCodec<? extends V> codec) throws IOException {
+		int vertexCount = in.readVarint();
+		List<V> ret = new ArrayList<>(vertexCount);
+		for (int i = 0; i < vertexCount; i++) {
+			ret.add(codec.decode(in.readBytes()));
+		}
+		return ret;
+	}
+
+	private static <V> V vertexOf(List<V> vertices, int index) throws IOException {
+		if (index >= vertices.size()) {
+			throw new IOException("vertex id out of range: " + index);
+		}
+		return vertices.get(index);
+	}
+
+	private static <V> int indexOf(Map<V, Integer> vertexIndex, V vertex) {
+		Integer ret = vertexIndex.get(vertex);
+		if (ret == null) {
+			throw new IllegalArgumentException("edge vertex not part of any layer: " + vertex);
+		}
+		return ret;
+	}
+
+	static ByteBuffer map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+}
@@ -16,27 +16,29 @@
  */
 package de.flapdoodle.graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.function.ToDoubleFunction;
 
 import org.jgrapht.Graph;
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
-import org.jgrapht.alg.interfaces.StrongConnectivityAlgorithm;
-import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedMultigraph;
 import org.jgrapht.graph.DirectedPseudograph;
-
-import de.flapdoodle.graph.ImmutableVerticesAndEdges.Builder;
+import org.jgrapht.graph.MaskSubgraph;
 
 public class Graphs {
 
@@ -45,6 +47,14 @@ public class Graphs {
 	}
 	
 	public static <V,E> DefaultDirectedGraph<V, E> filter(DefaultDirectedGraph<V, E> src, Predicate<V> filter, Consumer<V> filteredVertexConsumer, Consumer<E> filteredEdgeConsumer) {
+		GraphMetrics metrics = Metrics.listener();
+		if (metrics == null) {
+			return filterCopy(src, filter, filteredVertexConsumer, filteredEdgeConsumer);
+		}
+		return Metrics.measure(metrics, "filter", src, () -> filterCopy(src, filter, filteredVertexConsumer, filteredEdgeConsumer));
+	}
+
+	private static <V,E> DefaultDirectedGraph<V, E> filterCopy(DefaultDirectedGraph<V, E> src, Predicate<V> filter, Consumer<V> filteredVertexConsumer, Consumer<E> filteredEdgeConsumer) {
 		DefaultDirectedGraph<V, E> ret = new DefaultDirectedGraph<>(src.getVertexSupplier(), src.getEdgeSupplier(), src.getType().isWeighted());
 		
 		src.vertexSet().forEach(v -> {
@@ -55,110 +65,285 @@ public class Graphs {
 			}
 		});
 		
+		copyEdges(src, ret, filteredEdgeConsumer);
+		
+		return ret;
+	}
+
+	public static <V,E> DefaultDirectedGraph<V, E> parallelFilter(DefaultDirectedGraph<V, E> src, Predicate<V> filter, Consumer<V> filteredVertexConsumer, Consumer<E> filteredEdgeConsumer) {
+		return parallelFilter(ForkJoinPool.commonPool(), src, filter, filteredVertexConsumer, filteredEdgeConsumer);
+	}
+
+	/**
+	 * tests each vertex exactly once on the given pool, the resulting graph is assembled
+	 * and the consumers are called in the calling thread in the same order as {@link #filter(DefaultDirectedGraph, Predicate, Consumer, Consumer)} would do
+	 */
+	public static <V,E> DefaultDirectedGraph<V, E> parallelFilter(ForkJoinPool pool, DefaultDirectedGraph<V, E> src, Predicate<V> filter, Consumer<V> filteredVertexConsumer, Consumer<E> filteredEdgeConsumer) {
+		GraphMetrics metrics = Metrics.listener();
+		if (metrics == null) {
+			return parallelFilterCopy(pool, src, filter, filteredVertexConsumer, filteredEdgeConsumer);
+		}
+		return Metrics.measure(metrics, "parallelFilter", src, () -> parallelFilterCopy(pool, src, filter, filteredVertexConsumer, filteredEdgeConsumer));
+	}
+
+	private static <V,E> DefaultDirectedGraph<V, E> parallelFilterCopy(ForkJoinPool pool, DefaultDirectedGraph<V, E> src, Predicate<V> filter, Consumer<V> filteredVertexConsumer, Consumer<E> filteredEdgeConsumer) {
+		List<V> vertices = new ArrayList<>(src.vertexSet());
+		boolean[] keep = new boolean[vertices.size()];
+		int chunkSize = Math.max(1, vertices.size() / (pool.getParallelism() * 4));
+		pool.invoke(new TestVertices<>(vertices, filter, keep, 0, vertices.size(), chunkSize));
+
+		DefaultDirectedGraph<V, E> ret = new DefaultDirectedGraph<>(src.getVertexSupplier(), src.getEdgeSupplier(), src.getType().isWeighted());
+
+		for (int i = 0; i < keep.length; i++) {
+			if (keep[i]) {
+				ret.addVertex(vertices.get(i));
+			} else {
+				filteredVertexConsumer.accept(vertices.get(i));
+			}
+		}
+
+		copyEdges(src, ret, filteredEdgeConsumer);
+
+		return ret;
+	}
+
+	private static <V, E> void copyEdges(DefaultDirectedGraph<V, E> src, DefaultDirectedGraph<V, E> dst, Consumer<E> filteredEdgeConsumer) {
 		src.edgeSet().forEach(edge -> {
 			V source = src.getEdgeSource(edge);
 			V target = src.getEdgeTarget(edge);
-			if (filter.test(source) && filter.test(target)) {
-				ret.addEdge(source, target, edge);
+			if (dst.containsVertex(source) && dst.containsVertex(target)) {
+				dst.addEdge(source, target, edge);
 			} else {
 				filteredEdgeConsumer.accept(edge);
 			}
 		});
-		
-		return ret;
 	}
-	
-	public static <V,E> List<VerticesAndEdges<V, E>> leavesOf(DefaultDirectedGraph<V, E> src) {
-		return leavesOrRootsOf(src, true);
+
+	private static final class TestVertices<V> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<V> vertices;
+		private final Predicate<V> filter;
+		private final boolean[] keep;
+		private final int from;
+		private final int to;
+		private final int chunkSize;
+
+		private TestVertices(List<V> vertices, Predicate<V> filter, boolean[] keep, int from, int to, int chunkSize) {
+			this.vertices = vertices;
+			this.filter = filter;
+			this.keep = keep;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunkSize) {
+				for (int i = from; i < to; i++) {
+					keep[i] = filter.test(vertices.get(i));
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new TestVertices<>(vertices, filter, keep, from, middle, chunkSize),
+					new TestVertices<>(vertices, filter, keep, middle, to, chunkSize));
+			}
+		}
 	}
 	
-	public static <V,E> List<VerticesAndEdges<V, E>> rootsOf(DefaultDirectedGraph<V, E> src) {
-		return leavesOrRootsOf(src, false);
+	public static <V, E> Graph<V, E> filteredView(Graph<V, E> src, Predicate<V> vertexFilter) {
+		return filteredView(src, vertexFilter, edge -> true);
 	}
-	
-	private static <V,E> List<VerticesAndEdges<V, E>> leavesOrRootsOf(DefaultDirectedGraph<V, E> src,boolean leafes) {
-		List<VerticesAndEdges<V,E>> ret=new ArrayList<>();
 
-		Builder<V, E> builder = ImmutableVerticesAndEdges.builder();
-		
-		DefaultDirectedGraph<V, E> filtered = filter(src, leafes ? isLeaf(src).negate() : isRoot(src).negate(), t -> builder.addVertices(t), e -> builder.addEdges(ImmutableEdge.of(src.getEdgeSource(e), src.getEdgeTarget(e), e)));
-		
-		ImmutableVerticesAndEdges<V, E> verticesAndEdges = builder.build();
-		
-		if (!verticesAndEdges.vertices().isEmpty()) {
-			ret.add(verticesAndEdges);
-			ret.addAll(leavesOrRootsOf(filtered, leafes));
-		} else {
-	        List<Graph<V, E>> loopingSubGraph = loopsOfGraph(src);
-	        
-	        Set<V> vertexInLoopSet = loopingSubGraph.stream()
-	        		.flatMap(g -> g.vertexSet().stream())
-	        		.collect(Collectors.toSet());
-	        
-	        if (!loopingSubGraph.isEmpty()) {
-	        	DefaultDirectedGraph<V, E> filteredFromLoops = filter(filtered, v -> !vertexInLoopSet.contains(v), t -> {}, e -> {});
-	    		
-	        	ImmutableVerticesAndEdges<V, E> loopingVerticesAndEdges = verticesAndEdgesOf(loopsOf(loopingSubGraph));
-				
-				ret.add(loopingVerticesAndEdges);
-				ret.addAll(leavesOrRootsOf(filteredFromLoops, leafes));
-	        }
-		}
-		return Collections.unmodifiableList(ret);
+	/**
+	 * read only view of src without copying, edges are only visible if both vertices are visible
+	 * <p>
+	 * the view follows changes of src, but each vertex and edge is tested at most once: the first
+	 * result of a predicate is kept for the lifetime of the view, even if the predicate depends on state that
+	 * changes later. Results are not evicted when a vertex or edge is removed from src, so the view holds on to
+	 * everything it has ever tested. Create a new view for a fresh snapshot of the predicates.
+	 */
+	public static <V, E> Graph<V, E> filteredView(Graph<V, E> src, Predicate<V> vertexFilter, Predicate<E> edgeFilter) {
+		return new MaskSubgraph<>(src, cached(vertexFilter).negate(), cached(edgeFilter).negate());
 	}
 
-	private static <V, E> ImmutableVerticesAndEdges<V, E> verticesAndEdgesOf(List<? extends Loop<V, E>> loops) {
-		Builder<V, E> loopingVerticesAndEdgesBuilder = ImmutableVerticesAndEdges.builder();
-		
-		loops.forEach(l -> {
-			loopingVerticesAndEdgesBuilder.addAllVertices(l.vertexSet());
-		});
-		loopingVerticesAndEdgesBuilder.addAllLoops(loops);
+	private static <T> Predicate<T> cached(Predicate<T> filter) {
+		Map<T, Boolean> cache = new ConcurrentHashMap<>();
+		return t -> cache.computeIfAbsent(t, filter::test);
+	}
 
-		return loopingVerticesAndEdgesBuilder.build();
+	/**
+	 * kept for callers compiled against the DefaultDirectedGraph signature, see {@link #leavesOf(Graph)}
+	 */
+	public static <V,E> List<VerticesAndEdges<V, E>> leavesOf(DefaultDirectedGraph<V, E> src) {
+		return leavesOf((Graph<V, E>) src);
 	}
 
-	private static <V, E> List<? extends Loop<V, E>> loopsOf(List<Graph<V, E>> loopingSubGraph) {
-		List<Loop<V, E>> ret=new ArrayList<>();
-		
-		loopingSubGraph.forEach(g -> {
-			ImmutableLoop.Builder<V, E> loopBuilder=ImmutableLoop.builder();
-			g.edgeSet().forEach(egde -> {
-				loopBuilder.addEdges(ImmutableEdge.of(g.getEdgeSource(egde), g.getEdgeTarget(egde), egde));
-			});
-			ret.add(loopBuilder.build());
-		});
-		
-		return Collections.unmodifiableList(ret);
+	public static <V,E> List<VerticesAndEdges<V, E>> leavesOf(Graph<V, E> src) {
+		GraphMetrics metrics = Metrics.listener();
+		if (metrics == null) {
+			return Layering.leavesOrRootsOf(src, true);
+		}
+		return Metrics.measure(metrics, "leavesOf", src, measurement -> Layering.leavesOrRootsOf(src, true, measurement));
+	}
+	
+	/**
+	 * kept for callers compiled against the DefaultDirectedGraph signature, see {@link #rootsOf(Graph)}
+	 */
+	public static <V,E> List<VerticesAndEdges<V, E>> rootsOf(DefaultDirectedGraph<V, E> src) {
+		return rootsOf((Graph<V, E>) src);
 	}
 
-	private static <V, E> List<Graph<V, E>> loopsOfGraph(DefaultDirectedGraph<V, E> src) {
-		StrongConnectivityAlgorithm<V, E> inspector =	new KosarajuStrongConnectivityInspector<>(src);
-		
-		List<Graph<V, E>> loopingSubGraph = inspector.getStronglyConnectedComponents()
-				.stream()
-				.filter(l -> l.vertexSet().size()>1 || l.containsEdge(l.vertexSet().iterator().next(), l.vertexSet().iterator().next()))
-				.collect(Collectors.toList());
-		
-		return Collections.unmodifiableList(loopingSubGraph);
+	public static <V,E> List<VerticesAndEdges<V, E>> rootsOf(Graph<V, E> src) {
+		GraphMetrics metrics = Metrics.listener();
+		if (metrics == null) {
+			return Layering.leavesOrRootsOf(src, false);
+		}
+		return Metrics.measure(metrics, "rootsOf", src, measurement -> Layering.leavesOrRootsOf(src, false, measurement));
 	}
 	
+	/**
+	 * kept for callers compiled against the DefaultDirectedGraph signature, see {@link #loopsOf(Graph)}
+	 */
 	public static <V, E> List<? extends Loop<V, E>> loopsOf(DefaultDirectedGraph<V, E> src) {
-		return loopsOf(loopsOfGraph(src));
+		return loopsOf((Graph<V, E>) src);
+	}
+
+	public static <V, E> List<? extends Loop<V, E>> loopsOf(Graph<V, E> src) {
+		GraphMetrics metrics = Metrics.listener();
+		if (metrics == null) {
+			return loopsOfIndexed(src);
+		}
+		return Metrics.measure(metrics, "loopsOf", src, measurement -> loopsOfIndexed(src, measurement));
+	}
+
+	private static <V, E> List<? extends Loop<V, E>> loopsOfIndexed(Graph<V, E> src) {
+		IndexedGraph<V, E> graph = IndexedGraph.of(src);
+		return StronglyConnectedComponents.of(graph).loops(graph);
+	}
+
+	private static <V, E> List<? extends Loop<V, E>> loopsOfIndexed(Graph<V, E> src, ImmutableMeasurement.Builder measurement) {
+		IndexedGraph<V, E> graph = IndexedGraph.of(src);
+		StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+		List<Loop<V, E>> ret = components.loops(graph);
+		measurement.loopCount(ret.size())
+			.estimatedBytes(Metrics.indexBytes(src, graph) + components.estimatedBytes());
+		return ret;
 	}
 
 	
+	/**
+	 * kept for callers compiled against the DefaultDirectedGraph signature, see {@link #isLeaf(Graph)}
+	 */
 	public static <V> Predicate<V> isLeaf(DefaultDirectedGraph<V, ?> graph) {
+		return isLeaf((Graph<V, ?>) graph);
+	}
+
+	public static <V> Predicate<V> isLeaf(Graph<V, ?> graph) {
 		return v -> graph.outDegreeOf(v) == 0;
 	}
 	
+	/**
+	 * kept for callers compiled against the DefaultDirectedGraph signature, see {@link #isRoot(Graph)}
+	 */
 	public static <V> Predicate<V> isRoot(DefaultDirectedGraph<V, ?> graph) {
+		return isRoot((Graph<V, ?>) graph);
+	}
+
+	public static <V> Predicate<V> isRoot(Graph<V, ?> graph) {
 		return v -> graph.inDegreeOf(v) == 0;
 	}
 
+	/**
+	 * kept for callers compiled against the DefaultDirectedGraph signature, see {@link #hasPath(Graph, Object, Object)}
+	 */
 	public static <V> boolean hasPath(DefaultDirectedGraph<V, ?> graph, V from, V to) {
-		GraphPath<V, ?> paths = DijkstraShortestPath.findPathBetween(graph, from, to);
-		return paths!=null && !paths.getEdgeList().isEmpty();
+		return hasPath((Graph<V, ?>) graph, from, to);
+	}
+
+	public static <V> boolean hasPath(Graph<V, ?> graph, V from, V to) {
+		GraphMetrics metrics = Metrics.listener();
+		if (metrics == null) {
+			return hasPathBetween(graph, from, to);
+		}
+		return Metrics.measure(metrics, "hasPath", graph, () -> hasPathBetween(graph, from, to));
+	}
+
+	private static <V, E> boolean hasPathBetween(Graph<V, E> graph, V from, V to) {
+		if (!graph.containsVertex(from)) {
+			throw new IllegalArgumentException("graph must contain the source vertex: "+from);
+		}
+		if (!graph.containsVertex(to)) {
+			throw new IllegalArgumentException("graph must contain the target vertex: "+to);
+		}
+		if (from.equals(to)) {
+			return false;
+		}
+
+		Set<V> visited = new HashSet<>();
+		Deque<V> open = new ArrayDeque<>();
+		open.push(from);
+		visited.add(from);
+		while (!open.isEmpty()) {
+			V current = open.pop();
+			for (E edge : graph.outgoingEdgesOf(current)) {
+				V target = graph.getEdgeTarget(edge);
+				if (target.equals(to)) {
+					return true;
+				}
+				if (visited.add(target)) {
+					open.push(target);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @see ReachabilityIndex
+	 */
+	public static <V> ReachabilityIndex<V> reachabilityIndexOf(Graph<V, ?> graph) {
+		return ReachabilityIndex.of(graph);
+	}
+
+	/**
+	 * @see Condensation
+	 */
+	public static <V, E> Condensation<V, E> condense(Graph<V, E> graph) {
+		return Condensation.of(graph);
+	}
+
+	/**
+	 * @see CriticalPath
+	 */
+	public static <V> CriticalPath<V> criticalPath(Graph<V, ?> graph, ToDoubleFunction<? super V> cost) {
+		return CriticalPathAnalysis.of(graph, cost);
+	}
+
+	/**
+	 * union of {@link Loop#feedbackArcSet()} of all loops, the graph has no cycle without these edges
+	 */
+	public static <V, E> Set<Edge<V, E>> feedbackArcSet(Graph<V, E> graph) {
+		Set<Edge<V, E>> ret = new LinkedHashSet<>();
+		loopsOf(graph).forEach(loop -> ret.addAll(loop.feedbackArcSet()));
+		return Collections.unmodifiableSet(ret);
+	}
+
+	/**
+	 * new graph with an edge from each vertex to every vertex reachable from it,
+	 * vertices of a loop reach themselves
+	 */
+	public static <V, E> DefaultDirectedGraph<V, DefaultEdge> transitiveClosure(Graph<V, E> graph) {
+		return TransitiveEdges.closureOf(graph);
+	}
+
+	/**
+	 * new graph without edges which are implied by other paths, edges inside a loop are kept and
+	 * of many edges between the same two components only the first one is kept
+	 */
+	public static <V, E> DefaultDirectedGraph<V, E> transitiveReduction(Graph<V, E> graph) {
+		return TransitiveEdges.reductionOf(graph);
 	}
 
 	public static <V, E, G extends Graph<V, E>> LazyGraphBuilder<V,E,G> with(Supplier<GraphBuilder<V,E,G>> graphSupplier) {
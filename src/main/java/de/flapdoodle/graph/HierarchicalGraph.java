@@ -0,0 +1,475 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.immutables.value.Value;
+import org.immutables.value.Value.Parameter;
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+/**
+ * read only flattened view of a graph with nested {@link GraphAsDot.SubGraph}s, nothing is copied
+ * <p>
+ * a vertex with a sub graph is replaced by the vertices of its sub graph, each vertex is addressed
+ * by the path of sub graph vertices it is nested in. edges to or from a sub graph vertex are
+ * connected to the inner vertex its {@link GraphAsDot.SubGraph#connections()} maps the other
+ * vertex to (like the dot rendering does), edges without such a mapping are not visible
+ */
+public final class HierarchicalGraph<T> extends AbstractGraph<HierarchicalGraph.NestedVertex<T>, HierarchicalGraph.NestedEdge<T>> {
+
+	private static final GraphType TYPE = new DefaultGraphType.Builder()
+		.directed()
+		.allowSelfLoops(true)
+		.allowMultipleEdges(true)
+		.allowCycles(true)
+		.weighted(false)
+		.modifiable(false)
+		.build();
+
+	private final Graph<T, ?> root;
+	private final Function<T, Optional<GraphAsDot.SubGraph<T>>> subGraph;
+	private final Map<T, Optional<GraphAsDot.SubGraph<T>>> subGraphCache = new ConcurrentHashMap<>();
+
+	private final Set<NestedVertex<T>> vertexSet = new VertexSet();
+	private final Set<NestedEdge<T>> edgeSet = new EdgeSet();
+
+	private HierarchicalGraph(Graph<T, ?> root, Function<T, Optional<GraphAsDot.SubGraph<T>>> subGraph) {
+		this.root = root;
+		this.subGraph = subGraph;
+	}
+
+	@Value.Immutable
+	public interface NestedVertex<T> {
+		/**
+		 * sub graph vertices from the outer most graph down to the graph containing this vertex
+		 */
+		@Parameter
+		List<T> path();
+
+		@Parameter
+		T vertex();
+	}
+
+	@Value.Immutable
+	public interface NestedEdge<T> {
+		@Parameter
+		NestedVertex<T> source();
+
+		@Parameter
+		NestedVertex<T> target();
+
+		/**
+		 * edge of the graph this edge comes from
+		 */
+		@Parameter
+		Object edge();
+	}
+
+	private Optional<GraphAsDot.SubGraph<T>> subGraphOf(T vertex) {
+		return subGraphCache.computeIfAbsent(vertex, subGraph);
+	}
+
+	private Graph<T, ?> graphAt(List<T> path) {
+		Graph<T, ?> current = root;
+		for (T vertex : path) {
+			if (!current.containsVertex(vertex)) {
+				return null;
+			}
+			Optional<GraphAsDot.SubGraph<T>> sub = subGraphOf(vertex);
+			if (!sub.isPresent()) {
+				return null;
+			}
+			current = sub.get().graph();
+		}
+		return current;
+	}
+
+	private boolean isLeaf(Graph<T, ?> graph, T vertex) {
+		return graph.containsVertex(vertex) && !subGraphOf(vertex).isPresent();
+	}
+
+	private static <T> List<T> append(List<T> path, T vertex) {
+		List<T> ret = new ArrayList<>(path.size() + 1);
+		ret.addAll(path);
+		ret.add(vertex);
+		return Collections.unmodifiableList(ret);
+	}
+
+	private static <T> NestedVertex<T> nested(List<T> path, T vertex) {
+		return ImmutableNestedVertex.of(path, vertex);
+	}
+
+	private Set<NestedEdge<T>> outgoing(NestedVertex<T> vertex) {
+		assertVertexExist(vertex);
+		Set<NestedEdge<T>> ret = new LinkedHashSet<>();
+		addOutgoing(graphAt(vertex.path()), vertex, ret);
+
+		if (!vertex.path().isEmpty()) {
+			List<T> parentPath = vertex.path().subList(0, vertex.path().size() - 1);
+			T container = vertex.path().get(vertex.path().size() - 1);
+			Graph<T, ?> parent = graphAt(parentPath);
+			subGraphOf(container).get().connections().forEach((outer, inner) -> {
+				if (inner.equals(vertex.vertex()) && isLeaf(parent, outer)) {
+					Set<?> edges = parent.getAllEdges(container, outer);
+					if (edges != null) {
+						edges.forEach(e -> ret.add(ImmutableNestedEdge.of(vertex, nested(parentPath, outer), e)));
+					}
+				}
+			});
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	private <E> void addOutgoing(Graph<T, E> graph, NestedVertex<T> vertex, Set<NestedEdge<T>> edges) {
+		for (E e : graph.outgoingEdgesOf(vertex.vertex())) {
+			T target = graph.getEdgeTarget(e);
+			Optional<GraphAsDot.SubGraph<T>> sub = subGraphOf(target);
+			if (!sub.isPresent()) {
+				edges.add(ImmutableNestedEdge.of(vertex, nested(vertex.path(), target), e));
+			} else {
+				T inner = sub.get().connections().get(vertex.vertex());
+				if (inner != null && isLeaf(sub.get().graph(), inner)) {
+					edges.add(ImmutableNestedEdge.of(vertex, nested(append(vertex.path(), target), inner), e));
+				}
+			}
+		}
+	}
+
+	private Set<NestedEdge<T>> incoming(NestedVertex<T> vertex) {
+		assertVertexExist(vertex);
+		Set<NestedEdge<T>> ret = new LinkedHashSet<>();
+		addIncoming(graphAt(vertex.path()), vertex, ret);
+
+		if (!vertex.path().isEmpty()) {
+			List<T> parentPath = vertex.path().subList(0, vertex.path().size() - 1);
+			T container = vertex.path().get(vertex.path().size() - 1);
+			Graph<T, ?> parent = graphAt(parentPath);
+			subGraphOf(container).get().connections().forEach((outer, inner) -> {
+				if (inner.equals(vertex.vertex()) && isLeaf(parent, outer)) {
+					Set<?> edges = parent.getAllEdges(outer, container);
+					if (edges != null) {
+						edges.forEach(e -> ret.add(ImmutableNestedEdge.of(nested(parentPath, outer), vertex, e)));
+					}
+				}
+			});
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	private <E> void addIncoming(Graph<T, E> graph, NestedVertex<T> vertex, Set<NestedEdge<T>> edges) {
+		for (E e : graph.incomingEdgesOf(vertex.vertex())) {
+			T source = graph.getEdgeSource(e);
+			Optional<GraphAsDot.SubGraph<T>> sub = subGraphOf(source);
+			if (!sub.isPresent()) {
+				edges.add(ImmutableNestedEdge.of(nested(vertex.path(), source), vertex, e));
+			} else {
+				T inner = sub.get().connections().get(vertex.vertex());
+				if (inner != null && isLeaf(sub.get().graph(), inner)) {
+					edges.add(ImmutableNestedEdge.of(nested(append(vertex.path(), source), inner), vertex, e));
+				}
+			}
+		}
+	}
+
+	@Override
+	public Set<NestedEdge<T>> getAllEdges(NestedVertex<T> sourceVertex, NestedVertex<T> targetVertex) {
+		if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+			return null;
+		}
+		Set<NestedEdge<T>> ret = new LinkedHashSet<>();
+		outgoing(sourceVertex).forEach(e -> {
+			if (e.target().equals(targetVertex)) {
+				ret.add(e);
+			}
+		});
+		return Collections.unmodifiableSet(ret);
+	}
+
+	@Override
+	public NestedEdge<T> getEdge(NestedVertex<T> sourceVertex, NestedVertex<T> targetVertex) {
+		if (!containsVertex(sourceVertex) || !containsVertex(targetVertex)) {
+			return null;
+		}
+		for (NestedEdge<T> e : outgoing(sourceVertex)) {
+			if (e.target().equals(targetVertex)) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Supplier<NestedVertex<T>> getVertexSupplier() {
+		return null;
+	}
+
+	@Override
+	public Supplier<NestedEdge<T>> getEdgeSupplier() {
+		return null;
+	}
+
+	@Override
+	public NestedEdge<T> addEdge(NestedVertex<T> sourceVertex, NestedVertex<T> targetVertex) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean addEdge(NestedVertex<T> sourceVertex, NestedVertex<T> targetVertex, NestedEdge<T> e) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public NestedVertex<T> addVertex() {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean addVertex(NestedVertex<T> v) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean containsEdge(NestedEdge<T> e) {
+		return e != null && containsVertex(e.source()) && outgoing(e.source()).contains(e);
+	}
+
+	@Override
+	public boolean containsVertex(NestedVertex<T> v) {
+		if (v == null) {
+			return false;
+		}
+		Graph<T, ?> graph = graphAt(v.path());
+		return graph != null && isLeaf(graph, v.vertex());
+	}
+
+	@Override
+	public Set<NestedEdge<T>> edgeSet() {
+		return edgeSet;
+	}
+
+	@Override
+	public int degreeOf(NestedVertex<T> vertex) {
+		return inDegreeOf(vertex) + outDegreeOf(vertex);
+	}
+
+	@Override
+	public Set<NestedEdge<T>> edgesOf(NestedVertex<T> vertex) {
+		Set<NestedEdge<T>> ret = new LinkedHashSet<>(outgoing(vertex));
+		ret.addAll(incoming(vertex));
+		return Collections.unmodifiableSet(ret);
+	}
+
+	@Override
+	public int inDegreeOf(NestedVertex<T> vertex) {
+		return incoming(vertex).size();
+	}
+
+	@Override
+	public Set<NestedEdge<T>> incomingEdgesOf(NestedVertex<T> vertex) {
+		return incoming(vertex);
+	}
+
+	@Override
+	public int outDegreeOf(NestedVertex<T> vertex) {
+		return outgoing(vertex).size();
+	}
+
+	@Override
+	public Set<NestedEdge<T>> outgoingEdgesOf(NestedVertex<T> vertex) {
+		return outgoing(vertex);
+	}
+
+	@Override
+	public NestedEdge<T> removeEdge(NestedVertex<T> sourceVertex, NestedVertex<T> targetVertex) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean removeEdge(NestedEdge<T> e) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean removeVertex(NestedVertex<T> v) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public Set<NestedVertex<T>> vertexSet() {
+		return vertexSet;
+	}
+
+	@Override
+	public NestedVertex<T> getEdgeSource(NestedEdge<T> e) {
+		return e.source();
+	}
+
+	@Override
+	public NestedVertex<T> getEdgeTarget(NestedEdge<T> e) {
+		return e.target();
+	}
+
+	@Override
+	public GraphType getType() {
+		return TYPE;
+	}
+
+	@Override
+	public double getEdgeWeight(NestedEdge<T> e) {
+		return Graph.DEFAULT_EDGE_WEIGHT;
+	}
+
+	@Override
+	public void setEdgeWeight(NestedEdge<T> e, double weight) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	/**
+	 * vertices in graph order, the vertices of a sub graph take the place of its sub graph vertex
+	 */
+	private final class VertexSet extends AbstractSet<NestedVertex<T>> {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			return o instanceof NestedVertex && containsVertex((NestedVertex<T>) o);
+		}
+
+		@Override
+		public int size() {
+			int ret = 0;
+			for (Iterator<NestedVertex<T>> it = iterator(); it.hasNext(); it.next()) {
+				ret++;
+			}
+			return ret;
+		}
+
+		@Override
+		public Iterator<NestedVertex<T>> iterator() {
+			return new Iterator<NestedVertex<T>>() {
+				private final Deque<Level<T>> levels = new ArrayDeque<>(Collections.singleton(new Level<>(Collections.emptyList(), root)));
+				private NestedVertex<T> next;
+
+				@Override
+				public boolean hasNext() {
+					while (next == null && !levels.isEmpty()) {
+						Level<T> level = levels.peek();
+						if (!level.vertices.hasNext()) {
+							levels.pop();
+						} else {
+							T vertex = level.vertices.next();
+							Optional<GraphAsDot.SubGraph<T>> sub = subGraphOf(vertex);
+							if (sub.isPresent()) {
+								levels.push(new Level<>(append(level.path, vertex), sub.get().graph()));
+							} else {
+								next = nested(level.path, vertex);
+							}
+						}
+					}
+					return next != null;
+				}
+
+				@Override
+				public NestedVertex<T> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					NestedVertex<T> ret = next;
+					next = null;
+					return ret;
+				}
+			};
+		}
+	}
+
+	private static final class Level<T> {
+		private final List<T> path;
+		private final Iterator<T> vertices;
+
+		private Level(List<T> path, Graph<T, ?> graph) {
+			this.path = path;
+			this.vertices = graph.vertexSet().iterator();
+		}
+	}
+
+	/**
+	 * outgoing edges of each vertex in vertex order
+	 */
+	private final class EdgeSet extends AbstractSet<NestedEdge<T>> {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			return o instanceof NestedEdge && containsEdge((NestedEdge<T>) o);
+		}
+
+		@Override
+		public int size() {
+			int ret = 0;
+			for (NestedVertex<T> vertex : vertexSet) {
+				ret += outgoing(vertex).size();
+			}
+			return ret;
+		}
+
+		@Override
+		public Iterator<NestedEdge<T>> iterator() {
+			Iterator<NestedVertex<T>> vertices = vertexSet.iterator();
+			return new Iterator<NestedEdge<T>>() {
+				private Iterator<NestedEdge<T>> edges = Collections.emptyIterator();
+
+				@Override
+				public boolean hasNext() {
+					while (!edges.hasNext() && vertices.hasNext()) {
+						edges = outgoing(vertices.next()).iterator();
+					}
+					return edges.hasNext();
+				}
+
+				@Override
+				public NestedEdge<T> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return edges.next();
+				}
+			};
+		}
+	}
+
+	public static <T> HierarchicalGraph<T> of(Graph<T, ?> graph, Function<T, Optional<GraphAsDot.SubGraph<T>>> subGraph) {
+		return new HierarchicalGraph<>(graph, subGraph);
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.immutables.value.Value;
+
+/**
+ * in memory {@link GraphMetrics}, durations are counted per operation in power of two buckets
+ */
+public final class HistogramGraphMetrics implements GraphMetrics {
+
+	private static final int BUCKETS = 64;
+
+	private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+	@Override
+	public void record(Measurement measurement) {
+		counters.computeIfAbsent(measurement.operation(), operation -> new Counters())
+			.add(measurement);
+	}
+
+	/**
+	 * @return histograms by operation name
+	 */
+	public Map<String, Histogram> snapshot() {
+		Map<String, Histogram> ret = new TreeMap<>();
+		counters.forEach((operation, c) -> ret.put(operation, c.snapshot(operation)));
+		return Collections.unmodifiableMap(ret);
+	}
+
+	public void reset() {
+		counters.clear();
+	}
+
+	@Value.Immutable
+	public interface Histogram {
+		String operation();
+
+		long count();
+
+		long totalNanos();
+
+		long maxNanos();
+
+		long totalVertices();
+
+		long totalEdges();
+
+		long totalLayers();
+
+		long totalLoops();
+
+		long totalEstimatedBytes();
+
+		/**
+		 * bucket i counts durations from 2^i (inclusive) to 2^(i+1) (exclusive) nanoseconds,
+		 * bucket 0 also counts 0
+		 */
+		List<Long> buckets();
+
+		/**
+		 * @return upper bound of the bucket containing the given percentile (0..100) of all durations
+		 */
+		default long percentileNanos(double percentile) {
+			long rank = (long) Math.ceil(count() * percentile / 100.0);
+			long seen = 0;
+			for (int i = 0; i < buckets().size(); i++) {
+				seen += buckets().get(i);
+				if (seen >= rank && seen > 0) {
+					return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+				}
+			}
+			return 0;
+		}
+	}
+
+	private static final class Counters {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+		private final LongAdder vertices = new LongAdder();
+		private final LongAdder edges = new LongAdder();
+		private final LongAdder layers = new LongAdder();
+		private final LongAdder loops = new LongAdder();
+		private final LongAdder estimatedBytes = new LongAdder();
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		private void add(Measurement measurement) {
+			long duration = Math.max(0L, measurement.durationNanos());
+			count.increment();
+			totalNanos.add(duration);
+			maxNanos.accumulate(duration);
+			vertices.add(measurement.vertexCount());
+			edges.add(measurement.edgeCount());
+			layers.add(measurement.layerCount());
+			loops.add(measurement.loopCount());
+			estimatedBytes.add(measurement.estimatedBytes());
+			buckets.incrementAndGet(duration == 0 ? 0 : 63 - Long.numberOfLeadingZeros(duration));
+		}
+
+		private Histogram snapshot(String operation) {
+			List<Long> bucketCounts = new ArrayList<>(BUCKETS);
+			for (int i = 0; i < BUCKETS; i++) {
+				bucketCounts.add(buckets.get(i));
+			}
+			return ImmutableHistogram.builder()
+				.operation(operation)
+				.count(count.sum())
+				.totalNanos(totalNanos.sum())
+				.maxNanos(maxNanos.get())
+				.totalVertices(vertices.sum())
+				.totalEdges(edges.sum())
+				.totalLayers(layers.sum())
+				.totalLoops(loops.sum())
+				.totalEstimatedBytes(estimatedBytes.sum())
+				.buckets(bucketCounts)
+				.build();
+		}
+	}
+}
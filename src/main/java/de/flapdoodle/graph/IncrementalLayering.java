@@ -0,0 +1,496 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.jgrapht.ListenableGraph;
+import org.jgrapht.event.GraphEdgeChangeEvent;
+import org.jgrapht.event.GraphListener;
+import org.jgrapht.event.GraphVertexChangeEvent;
+
+import de.flapdoodle.graph.ImmutableVerticesAndEdges.Builder;
+
+/**
+ * keeps the result of {@link Graphs#leavesOf(org.jgrapht.Graph)} or {@link Graphs#rootsOf(org.jgrapht.Graph)}
+ * up to date while the graph changes
+ * <p>
+ * the layer of a vertex only depends on the vertices below it (successors for leaves, predecessors for roots),
+ * so an edge change only recomputes the vertices above it as long as their layer changes. Layers are rebuilt
+ * on demand and only if their vertices or edges changed.
+ * <p>
+ * not thread safe, all changes must go through the listenable graph
+ */
+public final class IncrementalLayering<V, E> {
+
+	private final ListenableGraph<V, E> graph;
+	private final boolean leaves;
+	private final GraphListener<V, E> listener = new Listener();
+
+	private final Map<V, Long> vertexOrder = new HashMap<>();
+	private final Map<E, Long> edgeOrder = new HashMap<>();
+	private long vertexCounter;
+	private long edgeCounter;
+
+	private final Map<V, Layer> layerOf = new HashMap<>();
+	private final Map<Layer, Set<V>> members = new HashMap<>();
+	private final TreeMap<Layer, VerticesAndEdges<V, E>> layerCache = new TreeMap<>();
+	private final Set<Layer> dirty = new HashSet<>();
+	private List<VerticesAndEdges<V, E>> snapshot;
+
+	private IncrementalLayering(ListenableGraph<V, E> graph, boolean leaves) {
+		this.graph = graph;
+		this.leaves = leaves;
+
+		graph.vertexSet().forEach(v -> vertexOrder.put(v, vertexCounter++));
+		graph.edgeSet().forEach(e -> edgeOrder.put(e, edgeCounter++));
+		recompute(new ArrayList<>(graph.vertexSet()));
+
+		graph.addGraphListener(listener);
+	}
+
+	/**
+	 * same result as a fresh layering of the current graph
+	 */
+	public List<VerticesAndEdges<V, E>> layers() {
+		if (snapshot == null) {
+			for (Layer layer : dirty) {
+				Set<V> vertices = members.get(layer);
+				if (vertices == null || vertices.isEmpty()) {
+					layerCache.remove(layer);
+				} else {
+					layerCache.put(layer, layer.isLoop() ? loopsOf(vertices) : verticesAndEdgesOf(layer, vertices));
+				}
+			}
+			dirty.clear();
+			snapshot = Collections.unmodifiableList(new ArrayList<>(layerCache.values()));
+		}
+		return snapshot;
+	}
+
+	/**
+	 * stop listening to graph changes
+	 */
+	public void detach() {
+		graph.removeGraphListener(listener);
+	}
+
+	private VerticesAndEdges<V, E> verticesAndEdgesOf(Layer layer, Set<V> vertices) {
+		Builder<V, E> builder = ImmutableVerticesAndEdges.builder();
+
+		List<V> sortedVertices = inGraphOrder(vertices);
+		builder.addAllVertices(sortedVertices);
+
+		List<E> edges = new ArrayList<>();
+		for (V v : sortedVertices) {
+			for (E e : leaves ? graph.incomingEdgesOf(v) : graph.outgoingEdgesOf(v)) {
+				V other = leaves ? graph.getEdgeSource(e) : graph.getEdgeTarget(e);
+				// edges from loops are removed with the loops, before any vertex after the loop layer
+				if (!(layer.isAfterLoops() && layerOf.get(other).isLoop())) {
+					edges.add(e);
+				}
+			}
+		}
+		edges.sort(Comparator.comparing(edgeOrder::get));
+		edges.forEach(e -> builder.addEdges(ImmutableEdge.of(graph.getEdgeSource(e), graph.getEdgeTarget(e), e)));
+
+		return builder.build();
+	}
+
+	private VerticesAndEdges<V, E> loopsOf(Set<V> vertices) {
+		List<V> sortedVertices = inGraphOrder(vertices);
+		List<E> edges = new ArrayList<>();
+		for (V v : sortedVertices) {
+			for (E e : graph.outgoingEdgesOf(v)) {
+				if (vertices.contains(graph.getEdgeTarget(e))) {
+					edges.add(e);
+				}
+			}
+		}
+		edges.sort(Comparator.comparing(edgeOrder::get));
+
+		IndexedGraph<V, E> loopGraph = IndexedGraph.of(graph, sortedVertices, edges);
+		List<Loop<V, E>> loops = StronglyConnectedComponents.of(loopGraph).loops(loopGraph);
+
+		Builder<V, E> builder = ImmutableVerticesAndEdges.builder();
+		loops.forEach(l -> builder.addAllVertices(l.vertexSet()));
+		builder.addAllLoops(loops);
+		return builder.build();
+	}
+
+	private List<V> inGraphOrder(Set<V> vertices) {
+		List<V> ret = new ArrayList<>(vertices);
+		ret.sort(Comparator.comparing(vertexOrder::get));
+		return ret;
+	}
+
+	/**
+	 * the changed edge can only change the loop membership of vertices on a path back from the lower to the
+	 * upper end, and only the layer of the upper end and the vertices above it; propagation stops at every
+	 * vertex whose layer stays the same
+	 */
+	private void onEdgeChange(V source, V target) {
+		markDirty(layerOf.get(source));
+		markDirty(layerOf.get(target));
+
+		V upper = leaves ? source : target;
+		V lower = leaves ? target : source;
+
+		Pending pending = new Pending();
+		updateLoops(cycleCandidates(lower, upper), pending);
+		if (!layerOf.get(upper).isLoop()) {
+			pending.add(upper);
+		}
+		pending.propagate();
+	}
+
+	/**
+	 * vertices reachable downstream from lower which can reach upper again, searching only below upper
+	 * in the current layers
+	 */
+	private List<V> cycleCandidates(V lower, V upper) {
+		Layer upperLayer = layerOf.get(upper);
+		Set<V> reachable = new HashSet<>();
+		Deque<V> open = new ArrayDeque<>();
+		if (canReach(lower, upper, upperLayer)) {
+			reachable.add(lower);
+			open.push(lower);
+		}
+		while (!open.isEmpty()) {
+			forEachDownstream(open.pop(), v -> {
+				if (!reachable.contains(v) && canReach(v, upper, upperLayer)) {
+					reachable.add(v);
+					open.push(v);
+				}
+			});
+		}
+
+		List<V> ret = new ArrayList<>();
+		if (reachable.contains(upper)) {
+			Set<V> seen = new HashSet<>();
+			seen.add(upper);
+			open.push(upper);
+			while (!open.isEmpty()) {
+				V current = open.pop();
+				ret.add(current);
+				forEachUpstream(current, v -> {
+					if (reachable.contains(v) && seen.add(v)) {
+						open.push(v);
+					}
+				});
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * layers are a topological order outside of loops, so a vertex before loops can only reach upper if
+	 * upper is before loops too and has a lower height
+	 */
+	private boolean canReach(V vertex, V upper, Layer upperLayer) {
+		if (vertex.equals(upper)) {
+			return true;
+		}
+		Layer layer = layerOf.get(vertex);
+		if (layer.phase != Layer.BEFORE_LOOPS) {
+			return true;
+		}
+		return upperLayer.phase == Layer.BEFORE_LOOPS && layer.height > upperLayer.height;
+	}
+
+	private void updateLoops(List<V> candidates, Pending pending) {
+		if (candidates.isEmpty()) {
+			return;
+		}
+		Set<V> candidateSet = new HashSet<>(candidates);
+		List<E> edges = new ArrayList<>();
+		for (V v : candidates) {
+			for (E e : graph.outgoingEdgesOf(v)) {
+				if (candidateSet.contains(graph.getEdgeTarget(e))) {
+					edges.add(e);
+				}
+			}
+		}
+
+		IndexedGraph<V, E> subGraph = IndexedGraph.of(graph, candidates, edges);
+		StronglyConnectedComponents components = StronglyConnectedComponents.of(subGraph);
+		for (int c = 0; c < components.count(); c++) {
+			boolean cyclic = components.isCyclic(c);
+			for (int j = 0; j < components.size(c); j++) {
+				V v = subGraph.vertex(components.member(c, j));
+				boolean wasLoop = layerOf.get(v).isLoop();
+				if (cyclic && !wasLoop) {
+					update(v, Layer.LOOP);
+					forEachUpstream(v, pending::add);
+				} else if (!cyclic && wasLoop) {
+					update(v, layerFromDownstream(v));
+					pending.add(v);
+					forEachUpstream(v, pending::add);
+				}
+			}
+		}
+	}
+
+	/**
+	 * vertices waiting for a new layer, lowest layer first, so most vertices are visited after everything
+	 * below them is up to date
+	 */
+	private final class Pending {
+		private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+		private final Set<V> queued = new HashSet<>();
+		private long counter;
+
+		private void add(V vertex) {
+			if (queued.add(vertex)) {
+				queue.add(new Entry(layerOf.get(vertex), counter++, vertex));
+			}
+		}
+
+		private void propagate() {
+			while (!queue.isEmpty()) {
+				V vertex = queue.poll().vertex;
+				queued.remove(vertex);
+				Layer old = layerOf.get(vertex);
+				if (!old.isLoop()) {
+					Layer layer = layerFromDownstream(vertex);
+					if (!layer.equals(old)) {
+						update(vertex, layer);
+						forEachUpstream(vertex, v -> {
+							if (!layerOf.get(v).isLoop()) {
+								add(v);
+							}
+						});
+					}
+				}
+			}
+		}
+
+		private final class Entry implements Comparable<Entry> {
+			private final Layer layer;
+			private final long order;
+			private final V vertex;
+
+			private Entry(Layer layer, long order, V vertex) {
+				this.layer = layer;
+				this.order = order;
+				this.vertex = vertex;
+			}
+
+			@Override
+			public int compareTo(Entry other) {
+				int compareLayer = layer.compareTo(other.layer);
+				return compareLayer != 0 ? compareLayer : Long.compare(order, other.order);
+			}
+		}
+	}
+
+	private void recompute(List<V> affected) {
+		Set<V> affectedSet = new HashSet<>(affected);
+		List<E> edges = new ArrayList<>();
+		for (V v : affected) {
+			for (E e : graph.outgoingEdgesOf(v)) {
+				if (affectedSet.contains(graph.getEdgeTarget(e))) {
+					edges.add(e);
+				}
+			}
+		}
+
+		IndexedGraph<V, E> subGraph = IndexedGraph.of(graph, affected, edges);
+		StronglyConnectedComponents components = StronglyConnectedComponents.of(subGraph);
+
+		// components are numbered in reverse topological order, so successors come first
+		for (int i = 0; i < components.count(); i++) {
+			int c = leaves ? i : components.count() - 1 - i;
+			if (components.isCyclic(c)) {
+				for (int j = 0; j < components.size(c); j++) {
+					update(subGraph.vertex(components.member(c, j)), Layer.LOOP);
+				}
+			} else {
+				V v = subGraph.vertex(components.member(c, 0));
+				update(v, layerFromDownstream(v));
+			}
+		}
+	}
+
+	private Layer layerFromDownstream(V vertex) {
+		int[] maxHeight = {-1, -1};
+		boolean[] afterLoops = {false};
+		forEachDownstream(vertex, v -> {
+			Layer layer = layerOf.get(v);
+			if (layer.isLoop()) {
+				afterLoops[0] = true;
+			} else if (layer.isAfterLoops()) {
+				afterLoops[0] = true;
+				maxHeight[1] = Math.max(maxHeight[1], layer.height);
+			} else {
+				maxHeight[0] = Math.max(maxHeight[0], layer.height);
+			}
+		});
+		return afterLoops[0]
+			? new Layer(Layer.AFTER_LOOPS, maxHeight[1] + 1)
+			: new Layer(Layer.BEFORE_LOOPS, maxHeight[0] + 1);
+	}
+
+	private void update(V vertex, Layer layer) {
+		Layer old = layerOf.put(vertex, layer);
+		if (!layer.equals(old)) {
+			if (old != null) {
+				removeMember(old, vertex);
+			}
+			members.computeIfAbsent(layer, l -> new HashSet<>()).add(vertex);
+			markDirty(old);
+			markDirty(layer);
+			// edges reported with a layer depend on the layer of the other end
+			graph.edgesOf(vertex).forEach(e -> {
+				markDirty(layerOf.get(graph.getEdgeSource(e)));
+				markDirty(layerOf.get(graph.getEdgeTarget(e)));
+			});
+		}
+	}
+
+	private void removeMember(Layer layer, V vertex) {
+		Set<V> vertices = members.get(layer);
+		vertices.remove(vertex);
+		if (vertices.isEmpty()) {
+			members.remove(layer);
+		}
+	}
+
+	private void markDirty(Layer layer) {
+		if (layer != null) {
+			dirty.add(layer);
+		}
+		snapshot = null;
+	}
+
+	private void forEachDownstream(V vertex, Consumer<V> consumer) {
+		if (leaves) {
+			graph.outgoingEdgesOf(vertex).forEach(e -> consumer.accept(graph.getEdgeTarget(e)));
+		} else {
+			graph.incomingEdgesOf(vertex).forEach(e -> consumer.accept(graph.getEdgeSource(e)));
+		}
+	}
+
+	private void forEachUpstream(V vertex, Consumer<V> consumer) {
+		if (leaves) {
+			graph.incomingEdgesOf(vertex).forEach(e -> consumer.accept(graph.getEdgeSource(e)));
+		} else {
+			graph.outgoingEdgesOf(vertex).forEach(e -> consumer.accept(graph.getEdgeTarget(e)));
+		}
+	}
+
+	private class Listener implements GraphListener<V, E> {
+
+		@Override
+		public void vertexAdded(GraphVertexChangeEvent<V> event) {
+			V vertex = event.getVertex();
+			vertexOrder.put(vertex, vertexCounter++);
+			update(vertex, new Layer(Layer.BEFORE_LOOPS, 0));
+		}
+
+		@Override
+		public void vertexRemoved(GraphVertexChangeEvent<V> event) {
+			V vertex = event.getVertex();
+			vertexOrder.remove(vertex);
+			Layer old = layerOf.remove(vertex);
+			if (old != null) {
+				removeMember(old, vertex);
+				markDirty(old);
+			}
+		}
+
+		@Override
+		public void edgeAdded(GraphEdgeChangeEvent<V, E> event) {
+			edgeOrder.put(event.getEdge(), edgeCounter++);
+			onEdgeChange(event.getEdgeSource(), event.getEdgeTarget());
+		}
+
+		@Override
+		public void edgeRemoved(GraphEdgeChangeEvent<V, E> event) {
+			edgeOrder.remove(event.getEdge());
+			onEdgeChange(event.getEdgeSource(), event.getEdgeTarget());
+		}
+	}
+
+	/**
+	 * vertices which can not reach a loop come first, ordered by height, then all loops,
+	 * then all vertices reaching a loop ordered by their height above loops
+	 */
+	private static final class Layer implements Comparable<Layer> {
+		private static final int BEFORE_LOOPS = 0;
+		private static final int LOOPS = 1;
+		private static final int AFTER_LOOPS = 2;
+
+		private static final Layer LOOP = new Layer(LOOPS, 0);
+
+		private final int phase;
+		private final int height;
+
+		private Layer(int phase, int height) {
+			this.phase = phase;
+			this.height = height;
+		}
+
+		private boolean isLoop() {
+			return phase == LOOPS;
+		}
+
+		private boolean isAfterLoops() {
+			return phase == AFTER_LOOPS;
+		}
+
+		@Override
+		public int compareTo(Layer other) {
+			return phase != other.phase
+				? Integer.compare(phase, other.phase)
+				: Integer.compare(height, other.height);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			Layer other = (Layer) o;
+			return phase == other.phase && height == other.height;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * phase + height;
+		}
+	}
+
+	public static <V, E> IncrementalLayering<V, E> leavesOf(ListenableGraph<V, E> graph) {
+		return new IncrementalLayering<>(graph, true);
+	}
+
+	public static <V, E> IncrementalLayering<V, E> rootsOf(ListenableGraph<V, E> graph) {
+		return new IncrementalLayering<>(graph, false);
+	}
+}
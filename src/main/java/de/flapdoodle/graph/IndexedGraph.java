@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jgrapht.Graph;
+
+/**
+ * vertices and edges as int ids with compressed adjacency of outgoing and incoming edges
+ */
+interface IndexedGraph<V, E> {
+
+	int vertexCount();
+
+	int edgeCount();
+
+	List<V> vertices();
+
+	V vertex(int index);
+
+	/**
+	 * @return -1 if vertex is not part of the graph
+	 */
+	int indexOf(Object vertex);
+
+	E edge(int index);
+
+	int source(int edge);
+
+	int target(int edge);
+
+	int outDegree(int vertex);
+
+	int outEdge(int vertex, int i);
+
+	int inDegree(int vertex);
+
+	int inEdge(int vertex, int i);
+
+	/**
+	 * heap bytes of the index tables, vertices and edges are not counted
+	 */
+	long estimatedBytes();
+
+	default Edge<V, E> asEdge(int edge) {
+		return ImmutableEdge.of(vertex(source(edge)), vertex(target(edge)), edge(edge));
+	}
+
+	/**
+	 * indexed graph of the given vertices and edges in the given order, all edge endpoints must be part of vertices
+	 */
+	static <V, E> IndexedGraph<V, E> of(Graph<V, E> graph, List<V> vertices, List<E> edges) {
+		return ArrayIndexedGraph.of(graph, new ArrayList<>(vertices), new ArrayList<>(edges));
+	}
+
+	static <V, E> IndexedGraph<V, E> of(Graph<V, E> graph) {
+		if (graph instanceof CompactDirectedGraph) {
+			return ((CompactDirectedGraph<V, E>) graph).indexed();
+		}
+		if (graph instanceof MappedDirectedGraph) {
+			@SuppressWarnings("unchecked")
+			IndexedGraph<V, E> ret = (IndexedGraph<V, E>) ((MappedDirectedGraph<V>) graph).indexed();
+			return ret;
+		}
+		return ArrayIndexedGraph.of(graph, new ArrayList<>(graph.vertexSet()), new ArrayList<>(graph.edgeSet()));
+	}
+}
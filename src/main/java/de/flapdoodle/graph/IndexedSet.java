@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * read only set view over an index range, elements are created on access
+ */
+final class IndexedSet<T> extends AbstractSet<T> {
+	private final int size;
+	private final IntFunction<T> get;
+	private final Predicate<Object> contains;
+
+	IndexedSet(int size, IntFunction<T> get, Predicate<Object> contains) {
+		this.size = size;
+		this.get = get;
+		this.contains = contains;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return contains.test(o);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			int current = 0;
+
+			@Override
+			public boolean hasNext() {
+				return current < size;
+			}
+
+			@Override
+			public T next() {
+				if (current >= size) {
+					throw new NoSuchElementException();
+				}
+				return get.apply(current++);
+			}
+		};
+	}
+}
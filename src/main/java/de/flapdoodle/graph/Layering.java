@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.jgrapht.Graph;
+
+import de.flapdoodle.graph.ImmutableVerticesAndEdges.Builder;
+
+/**
+ * peels leaves (or roots) layer by layer in one pass over an indexed copy of the graph,
+ * counting the remaining out (or in) degree of each vertex instead of filtering the graph
+ * again for each layer; layers keep only int ids until they are accessed
+ */
+final class Layering<V, E> {
+
+	private final IndexedGraph<V, E> graph;
+	private final boolean leaves;
+
+	private final int[] degree;
+	private final boolean[] removedVertex;
+	private final boolean[] removedEdge;
+
+	private int[] current;
+	private int currentSize;
+	private int[] next;
+	private int nextSize;
+	private int remaining;
+
+	private int loopCount;
+	private long layerBytes;
+	private long componentBytes;
+
+	private Layering(IndexedGraph<V, E> graph, boolean leaves) {
+		this.graph = graph;
+		this.leaves = leaves;
+
+		int vertexCount = graph.vertexCount();
+		this.degree = new int[vertexCount];
+		this.removedVertex = new boolean[vertexCount];
+		this.removedEdge = new boolean[graph.edgeCount()];
+		this.current = new int[vertexCount];
+		this.next = new int[vertexCount];
+		this.remaining = vertexCount;
+
+		for (int v = 0; v < vertexCount; v++) {
+			degree[v] = leaves ? graph.outDegree(v) : graph.inDegree(v);
+			if (degree[v] == 0) {
+				next[nextSize++] = v;
+			}
+		}
+	}
+
+	private List<VerticesAndEdges<V, E>> layers() {
+		List<Supplier<VerticesAndEdges<V, E>>> ret = new ArrayList<>();
+		boolean loopsRemoved = false;
+
+		while (remaining > 0) {
+			swap();
+			if (currentSize > 0) {
+				ret.add(removeLayer());
+			} else {
+				if (loopsRemoved) {
+					throw new IllegalStateException("no leaves or roots left, but "+remaining+" vertices remaining");
+				}
+				ret.add(removeLoops(StronglyConnectedComponents.of(graph)));
+				loopsRemoved = true;
+			}
+		}
+
+		return new LazyList<>(ret);
+	}
+
+	private void swap() {
+		int[] tmp = current;
+		current = next;
+		currentSize = nextSize;
+		next = tmp;
+		nextSize = 0;
+	}
+
+	private Supplier<VerticesAndEdges<V, E>> removeLayer() {
+		int[] layerVertices = Arrays.copyOf(current, currentSize);
+		Arrays.sort(layerVertices);
+		int edgeCount = 0;
+		for (int v : layerVertices) {
+			removedVertex[v] = true;
+			edgeCount += leaves ? graph.inDegree(v) : graph.outDegree(v);
+		}
+		remaining -= currentSize;
+
+		int[] layerEdges = new int[edgeCount];
+		int layerEdgeCount = 0;
+		for (int v : layerVertices) {
+			int degreeOfV = leaves ? graph.inDegree(v) : graph.outDegree(v);
+			for (int j = 0; j < degreeOfV; j++) {
+				int e = leaves ? graph.inEdge(v, j) : graph.outEdge(v, j);
+				if (removeEdge(e)) {
+					layerEdges[layerEdgeCount++] = e;
+				}
+			}
+		}
+
+		int[] sortedEdges = Arrays.copyOf(layerEdges, layerEdgeCount);
+		Arrays.sort(sortedEdges);
+		layerBytes += Metrics.ints(layerVertices.length) + Metrics.ints(layerEdges.length) + Metrics.ints(sortedEdges.length);
+		return () -> {
+			Builder<V, E> builder = ImmutableVerticesAndEdges.builder();
+			for (int v : layerVertices) {
+				builder.addVertices(graph.vertex(v));
+			}
+			for (int e : sortedEdges) {
+				builder.addEdges(graph.asEdge(e));
+			}
+			return builder.build();
+		};
+	}
+
+	private Supplier<VerticesAndEdges<V, E>> removeLoops(StronglyConnectedComponents components) {
+		List<Integer> loopVertices = new ArrayList<>();
+		for (int v = 0; v < graph.vertexCount(); v++) {
+			if (!removedVertex[v] && components.isCyclic(components.componentOf(v))) {
+				removedVertex[v] = true;
+				loopVertices.add(v);
+			}
+		}
+		remaining -= loopVertices.size();
+
+		for (int v : loopVertices) {
+			for (int j = 0; j < graph.inDegree(v); j++) {
+				removeEdge(graph.inEdge(v, j));
+			}
+			for (int j = 0; j < graph.outDegree(v); j++) {
+				removeEdge(graph.outEdge(v, j));
+			}
+		}
+
+		List<Loop<V, E>> loops = components.loops(graph);
+		loopCount = loops.size();
+		componentBytes = components.estimatedBytes();
+		return () -> {
+			Builder<V, E> builder = ImmutableVerticesAndEdges.builder();
+			loops.forEach(l -> builder.addAllVertices(l.vertexSet()));
+			builder.addAllLoops(loops);
+			return builder.build();
+		};
+	}
+
+	private boolean removeEdge(int e) {
+		if (removedEdge[e]) {
+			return false;
+		}
+		removedEdge[e] = true;
+		int counted = leaves ? graph.source(e) : graph.target(e);
+		if (!removedVertex[counted] && --degree[counted] == 0) {
+			next[nextSize++] = counted;
+		}
+		return true;
+	}
+
+	/**
+	 * heap bytes of the degree counting arrays, the layer ids and the components if there were loops
+	 */
+	private long estimatedBytes() {
+		int vertexCount = graph.vertexCount();
+		return Metrics.ints(degree.length) + Metrics.booleans(removedVertex.length) + Metrics.booleans(removedEdge.length)
+			+ 2 * Metrics.ints(vertexCount) + layerBytes + componentBytes;
+	}
+
+	static <V, E> List<VerticesAndEdges<V, E>> leavesOrRootsOf(Graph<V, E> src, boolean leaves) {
+		return new Layering<>(IndexedGraph.of(src), leaves).layers();
+	}
+
+	/**
+	 * layers of src, the layer and loop counts and sizes are added to measurement without building a layer
+	 */
+	static <V, E> List<VerticesAndEdges<V, E>> leavesOrRootsOf(Graph<V, E> src, boolean leaves, ImmutableMeasurement.Builder measurement) {
+		IndexedGraph<V, E> graph = IndexedGraph.of(src);
+		Layering<V, E> layering = new Layering<>(graph, leaves);
+		List<VerticesAndEdges<V, E>> ret = layering.layers();
+		measurement.layerCount(ret.size())
+			.loopCount(layering.loopCount)
+			.estimatedBytes(Metrics.indexBytes(src, graph) + layering.estimatedBytes());
+		return ret;
+	}
+}
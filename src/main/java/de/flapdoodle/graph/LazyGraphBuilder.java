@@ -18,6 +18,10 @@ package de.flapdoodle.graph;
 
 import org.jgrapht.Graph;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -38,6 +42,89 @@ public class LazyGraphBuilder<V, E, G extends Graph<V, E>> {
 		return ret.build();
 	}
 
+	public <T> G parallelBuild(Iterable<T> src, BiConsumer<? super GraphBuilder<V, E, ?>, T> forEach) {
+		return parallelBuild(ForkJoinPool.commonPool(), src, forEach);
+	}
+
+	/**
+	 * splits src into chunks, builds a graph for each chunk in the pool and merges them in source order,
+	 * so the result does not depend on thread scheduling
+	 * <p>
+	 * each call of forEach must add the vertices of its edges, because it does not see
+	 * vertices added by other elements
+	 */
+	public <T> G parallelBuild(ForkJoinPool pool, Iterable<T> src, BiConsumer<? super GraphBuilder<V, E, ?>, T> forEach) {
+		List<T> elements = new ArrayList<>();
+		src.forEach(elements::add);
+
+		int chunkSize = Math.max(1, elements.size() / (pool.getParallelism() * 4));
+		int chunks = (elements.size() + chunkSize - 1) / chunkSize;
+		if (chunks <= 1) {
+			return build(elements, forEach);
+		}
+
+		List<G> graphs = new ArrayList<>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			graphs.add(null);
+		}
+		pool.invoke(new BuildChunks<>(graphSupplier, elements, forEach, graphs, 0, chunks, chunkSize));
+
+		G ret = graphs.get(0);
+		for (int i = 1; i < chunks; i++) {
+			addAll(ret, graphs.get(i));
+		}
+		return ret;
+	}
+
+	private static <V, E> void addAll(Graph<V, E> dst, Graph<V, E> src) {
+		src.vertexSet().forEach(dst::addVertex);
+		boolean weighted = dst.getType().isWeighted();
+		src.edgeSet().forEach(e -> {
+			if (dst.addEdge(src.getEdgeSource(e), src.getEdgeTarget(e), e) && weighted) {
+				dst.setEdgeWeight(e, src.getEdgeWeight(e));
+			}
+		});
+	}
+
+	private static final class BuildChunks<V, E, G extends Graph<V, E>, T> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Supplier<GraphBuilder<V, E, G>> graphSupplier;
+		private final List<T> elements;
+		private final BiConsumer<? super GraphBuilder<V, E, ?>, T> forEach;
+		private final List<G> graphs;
+		private final int fromChunk;
+		private final int toChunk;
+		private final int chunkSize;
+
+		private BuildChunks(Supplier<GraphBuilder<V, E, G>> graphSupplier, List<T> elements, BiConsumer<? super GraphBuilder<V, E, ?>, T> forEach,
+			List<G> graphs, int fromChunk, int toChunk, int chunkSize) {
+			this.graphSupplier = graphSupplier;
+			this.elements = elements;
+			this.forEach = forEach;
+			this.graphs = graphs;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (toChunk - fromChunk == 1) {
+				GraphBuilder<V, E, G> builder = graphSupplier.get();
+				int to = Math.min(elements.size(), (fromChunk + 1) * chunkSize);
+				for (int i = fromChunk * chunkSize; i < to; i++) {
+					forEach.accept(builder, elements.get(i));
+				}
+				graphs.set(fromChunk, builder.build());
+			} else {
+				int middle = (fromChunk + toChunk) >>> 1;
+				invokeAll(new BuildChunks<>(graphSupplier, elements, forEach, graphs, fromChunk, middle, chunkSize),
+					new BuildChunks<>(graphSupplier, elements, forEach, graphs, middle, toChunk, chunkSize));
+			}
+		}
+	}
+
 	public G build(Consumer<? super GraphBuilder<V, E, ?>> graphBuilderConsumer) {
 		GraphBuilder<V, E, G> ret = graphSupplier.get();
 
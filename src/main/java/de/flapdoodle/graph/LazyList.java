@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * read only list, each element is built on first access and kept
+ */
+final class LazyList<T> extends AbstractList<T> implements RandomAccess {
+
+	private final List<? extends Supplier<? extends T>> factories;
+	private final AtomicReferenceArray<T> values;
+
+	LazyList(List<? extends Supplier<? extends T>> factories) {
+		this.factories = factories;
+		this.values = new AtomicReferenceArray<>(factories.size());
+	}
+
+	@Override
+	public T get(int index) {
+		T ret = values.get(index);
+		if (ret == null) {
+			ret = factories.get(index).get();
+			if (!values.compareAndSet(index, null, ret)) {
+				ret = values.get(index);
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public int size() {
+		return factories.size();
+	}
+}
@@ -16,6 +16,8 @@
  */
 package de.flapdoodle.graph;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -36,4 +38,28 @@ public interface Loop<V,E> {
 				.flatMap(e -> Stream.of(e.start(), e.end()))
 				.collect(Collectors.toSet());
 	}
+
+	/**
+	 * elementary cycles of this loop, shortest first, each starting at its first vertex in
+	 * {@link #vertexSet()} order; cycles are searched while the stream is consumed, so use
+	 * {@link Stream#limit(long)} to get only some of them
+	 */
+	default Stream<List<V>> cycles() {
+		return CycleEnumeration.of(this, Long.MAX_VALUE);
+	}
+
+	/**
+	 * like {@link #cycles()}, but the stream ends when the search takes longer than budget
+	 */
+	default Stream<List<V>> cycles(Duration budget) {
+		return CycleEnumeration.of(this, budget.toNanos());
+	}
+
+	/**
+	 * edges to remove, so that the rest of this loop has no cycle, found with the eades-lin-smyth
+	 * heuristic in linear time, so it is small, but not always minimal
+	 */
+	default Set<Edge<V, E>> feedbackArcSet() {
+		return FeedbackArcSet.of(this);
+	}
 }
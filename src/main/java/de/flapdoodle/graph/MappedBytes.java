@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * read only file content mapped in segments, so files bigger than 2GB can be used
+ * <p>
+ * segments overlap by 8 bytes, so reading an int, long or double never crosses a segment
+ */
+final class MappedBytes {
+
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+	private static final int OVERLAP = Long.BYTES;
+
+	private final ByteBuffer[] segments;
+	private final long size;
+
+	private MappedBytes(ByteBuffer[] segments, long size) {
+		this.segments = segments;
+		this.size = size;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public int getInt(long offset) {
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK));
+	}
+
+	public long getLong(long offset) {
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+	}
+
+	public double getDouble(long offset) {
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getDouble((int) (offset & SEGMENT_MASK));
+	}
+
+	/**
+	 * @return read only view of the bytes, copied only if they span two segments
+	 */
+	public ByteBuffer slice(long offset, int length) {
+		int segment = (int) (offset >>> SEGMENT_SHIFT);
+		int start = (int) (offset & SEGMENT_MASK);
+		if (start + length <= segments[segment].capacity()) {
+			ByteBuffer ret = segments[segment].duplicate();
+			((Buffer) ret).position(start);
+			((Buffer) ret).limit(start + length);
+			return ret.slice().asReadOnlyBuffer();
+		}
+		byte[] copy = new byte[length];
+		for (int i = 0; i < length; i++) {
+			long at = offset + i;
+			copy[i] = segments[(int) (at >>> SEGMENT_SHIFT)].get((int) (at & SEGMENT_MASK));
+		}
+		return ByteBuffer.wrap(copy).asReadOnlyBuffer();
+	}
+
+	static MappedBytes map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int count = (int) Math.max(1, (size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+			ByteBuffer[] segments = new ByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				long start = i * SEGMENT_SIZE;
+				long length = Math.min(SEGMENT_SIZE + OVERLAP, size - start);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			}
+			return new MappedBytes(segments, size);
+		}
+	}
+}
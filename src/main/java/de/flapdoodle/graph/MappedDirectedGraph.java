@@ -0,0 +1,607 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+/**
+ * read only directed graph stored in a memory mapped file
+ * <p>
+ * adjacency, edge endpoints and a vertex hash table are int tables in the file, vertices
+ * are decoded with a {@link VertexCodec} on each access and edges are {@link MappedEdge}
+ * ids, so the heap only holds what is currently used
+ * <p>
+ * all modifying methods throw an {@link UnsupportedOperationException}
+ */
+public final class MappedDirectedGraph<V> extends AbstractGraph<V, MappedDirectedGraph.MappedEdge> {
+
+	private static final int MAGIC = 0x46474D47;
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 32;
+
+	private static final int FLAG_WEIGHTED = 1;
+	private static final int FLAG_SELF_LOOPS = 2;
+	private static final int FLAG_MULTIPLE_EDGES = 4;
+	private static final int FLAG_CYCLES = 8;
+
+	private final MappedBytes bytes;
+	private final VertexCodec<V> codec;
+	private final GraphType type;
+
+	private final int vertexCount;
+	private final int edgeCount;
+	private final int hashTableSize;
+
+	private final long vertexOffsets;
+	private final long hashTable;
+	private final long edgeSources;
+	private final long edgeTargets;
+	private final long outOffsets;
+	private final long outEdges;
+	private final long inOffsets;
+	private final long inEdges;
+	private final long weights;
+	private final long vertexData;
+
+	private final Set<V> vertexSet;
+	private final Set<MappedEdge> edgeSet;
+	private final IndexedGraph<V, MappedEdge> indexed;
+
+	private MappedDirectedGraph(MappedBytes bytes, VertexCodec<V> codec, int flags, int vertexCount, int edgeCount, int hashTableSize) {
+		this.bytes = bytes;
+		this.codec = codec;
+		this.vertexCount = vertexCount;
+		this.edgeCount = edgeCount;
+		this.hashTableSize = hashTableSize;
+
+		this.type = new DefaultGraphType.Builder()
+			.directed()
+			.allowSelfLoops((flags & FLAG_SELF_LOOPS) != 0)
+			.allowMultipleEdges((flags & FLAG_MULTIPLE_EDGES) != 0)
+			.allowCycles((flags & FLAG_CYCLES) != 0)
+			.weighted((flags & FLAG_WEIGHTED) != 0)
+			.modifiable(false)
+			.build();
+
+		this.vertexOffsets = HEADER_SIZE;
+		this.hashTable = vertexOffsets + (vertexCount + 1L) * Long.BYTES;
+		this.edgeSources = hashTable + (long) hashTableSize * Integer.BYTES;
+		this.edgeTargets = edgeSources + (long) edgeCount * Integer.BYTES;
+		this.outOffsets = edgeTargets + (long) edgeCount * Integer.BYTES;
+		this.outEdges = outOffsets + (vertexCount + 1L) * Integer.BYTES;
+		this.inOffsets = outEdges + (long) edgeCount * Integer.BYTES;
+		this.inEdges = inOffsets + (vertexCount + 1L) * Integer.BYTES;
+		this.weights = inEdges + (long) edgeCount * Integer.BYTES;
+		this.vertexData = weights + (type.isWeighted() ? (long) edgeCount * Double.BYTES : 0L);
+
+		this.vertexSet = new IndexedSet<>(vertexCount, this::vertex, v -> indexOf(v) != -1);
+		this.edgeSet = new IndexedSet<>(edgeCount, MappedEdge::new, this::isEdge);
+		this.indexed = new MappedIndex();
+	}
+
+	public static final class MappedEdge {
+		private final int id;
+
+		private MappedEdge(int id) {
+			this.id = id;
+		}
+
+		public int id() {
+			return id;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof MappedEdge && ((MappedEdge) other).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public String toString() {
+			return "MappedEdge{" + id + "}";
+		}
+	}
+
+	@Override
+	public Set<MappedEdge> getAllEdges(V sourceVertex, V targetVertex) {
+		int source = indexOf(sourceVertex);
+		int target = indexOf(targetVertex);
+		if (source == -1 || target == -1) {
+			return null;
+		}
+		Set<MappedEdge> ret = new LinkedHashSet<>();
+		for (int i = 0; i < outDegree(source); i++) {
+			int e = outEdge(source, i);
+			if (target(e) == target) {
+				ret.add(new MappedEdge(e));
+			}
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	@Override
+	public MappedEdge getEdge(V sourceVertex, V targetVertex) {
+		int source = indexOf(sourceVertex);
+		int target = indexOf(targetVertex);
+		if (source == -1 || target == -1) {
+			return null;
+		}
+		for (int i = 0; i < outDegree(source); i++) {
+			int e = outEdge(source, i);
+			if (target(e) == target) {
+				return new MappedEdge(e);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Supplier<V> getVertexSupplier() {
+		return null;
+	}
+
+	@Override
+	public Supplier<MappedEdge> getEdgeSupplier() {
+		return null;
+	}
+
+	@Override
+	public MappedEdge addEdge(V sourceVertex, V targetVertex) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean addEdge(V sourceVertex, V targetVertex, MappedEdge e) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public V addVertex() {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean addVertex(V v) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean containsEdge(MappedEdge e) {
+		return isEdge(e);
+	}
+
+	private boolean isEdge(Object e) {
+		return e instanceof MappedEdge && ((MappedEdge) e).id < edgeCount;
+	}
+
+	@Override
+	public boolean containsVertex(V v) {
+		return indexOf(v) != -1;
+	}
+
+	@Override
+	public Set<MappedEdge> edgeSet() {
+		return edgeSet;
+	}
+
+	@Override
+	public int degreeOf(V vertex) {
+		int v = existingIndexOf(vertex);
+		return inDegree(v) + outDegree(v);
+	}
+
+	@Override
+	public Set<MappedEdge> edgesOf(V vertex) {
+		int v = existingIndexOf(vertex);
+		int outDegree = outDegree(v);
+		int inDegree = inDegree(v);
+		int[] edges = new int[outDegree + inDegree];
+		for (int i = 0; i < outDegree; i++) {
+			edges[i] = outEdge(v, i);
+		}
+		int size = outDegree;
+		for (int i = 0; i < inDegree; i++) {
+			int e = inEdge(v, i);
+			if (source(e) != v) {
+				edges[size++] = e;
+			}
+		}
+		int edgeCountOfV = size;
+		return new IndexedSet<>(edgeCountOfV, i -> new MappedEdge(edges[i]),
+			e -> isEdgeOf(e, edge -> source(edge) == v || target(edge) == v));
+	}
+
+	@Override
+	public int inDegreeOf(V vertex) {
+		return inDegree(existingIndexOf(vertex));
+	}
+
+	@Override
+	public Set<MappedEdge> incomingEdgesOf(V vertex) {
+		int v = existingIndexOf(vertex);
+		return new IndexedSet<>(inDegree(v), i -> new MappedEdge(inEdge(v, i)),
+			e -> isEdgeOf(e, edge -> target(edge) == v));
+	}
+
+	@Override
+	public int outDegreeOf(V vertex) {
+		return outDegree(existingIndexOf(vertex));
+	}
+
+	@Override
+	public Set<MappedEdge> outgoingEdgesOf(V vertex) {
+		int v = existingIndexOf(vertex);
+		return new IndexedSet<>(outDegree(v), i -> new MappedEdge(outEdge(v, i)),
+			e -> isEdgeOf(e, edge -> source(edge) == v));
+	}
+
+	@Override
+	public MappedEdge removeEdge(V sourceVertex, V targetVertex) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean removeEdge(MappedEdge e) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public boolean removeVertex(V v) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	@Override
+	public Set<V> vertexSet() {
+		return vertexSet;
+	}
+
+	@Override
+	public V getEdgeSource(MappedEdge e) {
+		return vertex(source(edgeIndexOf(e)));
+	}
+
+	@Override
+	public V getEdgeTarget(MappedEdge e) {
+		return vertex(target(edgeIndexOf(e)));
+	}
+
+	@Override
+	public GraphType getType() {
+		return type;
+	}
+
+	@Override
+	public double getEdgeWeight(MappedEdge e) {
+		int index = edgeIndexOf(e);
+		return type.isWeighted() ? bytes.getDouble(weights + (long) index * Double.BYTES) : Graph.DEFAULT_EDGE_WEIGHT;
+	}
+
+	@Override
+	public void setEdgeWeight(MappedEdge e, double weight) {
+		throw new UnsupportedOperationException("read only");
+	}
+
+	IndexedGraph<V, MappedEdge> indexed() {
+		return indexed;
+	}
+
+	/**
+	 * reads endpoints and adjacency from the mapped tables, nothing is copied to the heap
+	 */
+	private final class MappedIndex implements IndexedGraph<V, MappedEdge> {
+		private final List<V> vertices = new IndexedList<>(vertexCount, MappedDirectedGraph.this::vertex);
+
+		@Override
+		public int vertexCount() {
+			return vertexCount;
+		}
+
+		@Override
+		public int edgeCount() {
+			return edgeCount;
+		}
+
+		@Override
+		public List<V> vertices() {
+			return vertices;
+		}
+
+		@Override
+		public V vertex(int index) {
+			return MappedDirectedGraph.this.vertex(index);
+		}
+
+		@Override
+		public int indexOf(Object vertex) {
+			return MappedDirectedGraph.this.indexOf(vertex);
+		}
+
+		@Override
+		public MappedEdge edge(int index) {
+			return new MappedEdge(index);
+		}
+
+		@Override
+		public int source(int edge) {
+			return MappedDirectedGraph.this.source(edge);
+		}
+
+		@Override
+		public int target(int edge) {
+			return MappedDirectedGraph.this.target(edge);
+		}
+
+		@Override
+		public int outDegree(int vertex) {
+			return MappedDirectedGraph.this.outDegree(vertex);
+		}
+
+		@Override
+		public int outEdge(int vertex, int i) {
+			return MappedDirectedGraph.this.outEdge(vertex, i);
+		}
+
+		@Override
+		public int inDegree(int vertex) {
+			return MappedDirectedGraph.this.inDegree(vertex);
+		}
+
+		@Override
+		public int inEdge(int vertex, int i) {
+			return MappedDirectedGraph.this.inEdge(vertex, i);
+		}
+
+		@Override
+		public long estimatedBytes() {
+			return 0L;
+		}
+	}
+
+	private static final class IndexedList<T> extends AbstractList<T> implements RandomAccess {
+		private final int size;
+		private final IntFunction<T> get;
+
+		private IndexedList(int size, IntFunction<T> get) {
+			this.size = size;
+			this.get = get;
+		}
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+			}
+			return get.apply(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private V vertex(int index) {
+		return codec.decode(encodedVertex(index));
+	}
+
+	private ByteBuffer encodedVertex(int index) {
+		long start = bytes.getLong(vertexOffsets + (long) index * Long.BYTES);
+		long end = bytes.getLong(vertexOffsets + (index + 1L) * Long.BYTES);
+		return bytes.slice(vertexData + start, (int) (end - start));
+	}
+
+	private int indexOf(Object vertex) {
+		if (vertex == null || vertexCount == 0) {
+			return -1;
+		}
+		byte[] raw;
+		try {
+			@SuppressWarnings("unchecked")
+			V v = (V) vertex;
+			raw = codec.encode(v);
+		} catch (ClassCastException cx) {
+			return -1;
+		}
+		ByteBuffer encoded = ByteBuffer.wrap(raw);
+		int mask = hashTableSize - 1;
+		for (int slot = hash(raw) & mask; ; slot = (slot + 1) & mask) {
+			int entry = bytes.getInt(hashTable + (long) slot * Integer.BYTES);
+			if (entry == 0) {
+				return -1;
+			}
+			if (encodedVertex(entry - 1).equals(encoded)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	private int existingIndexOf(V vertex) {
+		assertVertexExist(vertex);
+		return indexOf(vertex);
+	}
+
+	private int edgeIndexOf(MappedEdge e) {
+		if (!isEdge(e)) {
+			throw new IllegalArgumentException("no such edge in graph: " + e);
+		}
+		return e.id;
+	}
+
+	private boolean isEdgeOf(Object e, IntPredicate check) {
+		return isEdge(e) && check.test(((MappedEdge) e).id);
+	}
+
+	private int source(int edge) {
+		return bytes.getInt(edgeSources + (long) edge * Integer.BYTES);
+	}
+
+	private int target(int edge) {
+		return bytes.getInt(edgeTargets + (long) edge * Integer.BYTES);
+	}
+
+	private int outDegree(int v) {
+		return bytes.getInt(outOffsets + (v + 1L) * Integer.BYTES) - bytes.getInt(outOffsets + (long) v * Integer.BYTES);
+	}
+
+	private int outEdge(int v, int i) {
+		return bytes.getInt(outEdges + ((long) bytes.getInt(outOffsets + (long) v * Integer.BYTES) + i) * Integer.BYTES);
+	}
+
+	private int inDegree(int v) {
+		return bytes.getInt(inOffsets + (v + 1L) * Integer.BYTES) - bytes.getInt(inOffsets + (long) v * Integer.BYTES);
+	}
+
+	private int inEdge(int v, int i) {
+		return bytes.getInt(inEdges + ((long) bytes.getInt(inOffsets + (long) v * Integer.BYTES) + i) * Integer.BYTES);
+	}
+
+	/**
+	 * 32 bit FNV-1a over the encoded vertex, part of the file format
+	 */
+	private static int hash(byte[] encoded) {
+		int h = 0x811C9DC5;
+		for (byte b : encoded) {
+			h ^= b & 0xFF;
+			h *= 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	public static <V> MappedDirectedGraph<V> open(Path path, VertexCodec<V> codec) throws IOException {
+		MappedBytes bytes = MappedBytes.map(path);
+		if (bytes.size() < HEADER_SIZE || bytes.getInt(0) != MAGIC) {
+			throw new IOException("not a mapped graph file: " + path);
+		}
+		int version = bytes.getInt(4);
+		if (version != VERSION) {
+			throw new IOException("unsupported version: " + version);
+		}
+		return new MappedDirectedGraph<>(bytes, codec, bytes.getInt(8), bytes.getInt(12), bytes.getInt(16), bytes.getInt(20));
+	}
+
+	public static <V, E> void write(Graph<V, E> src, VertexCodec<? super V> codec, Path path) throws IOException {
+		GraphType srcType = src.getType();
+		if (!srcType.isDirected()) {
+			throw new IllegalArgumentException("graph is not directed: " + srcType);
+		}
+		IndexedGraph<V, E> graph = IndexedGraph.of(src);
+		int vertexCount = graph.vertexCount();
+		int edgeCount = graph.edgeCount();
+
+		byte[][] encoded = new byte[vertexCount][];
+		for (int v = 0; v < vertexCount; v++) {
+			encoded[v] = codec.encode(graph.vertex(v));
+		}
+
+		int hashTableSize = Integer.highestOneBit(Math.max(2, vertexCount * 2 - 1)) << 1;
+		int[] table = new int[hashTableSize];
+		for (int v = 0; v < vertexCount; v++) {
+			int slot = hash(encoded[v]) & (hashTableSize - 1);
+			while (table[slot] != 0) {
+				slot = (slot + 1) & (hashTableSize - 1);
+			}
+			table[slot] = v + 1;
+		}
+
+		int flags = (srcType.isWeighted() ? FLAG_WEIGHTED : 0)
+			| (srcType.isAllowingSelfLoops() ? FLAG_SELF_LOOPS : 0)
+			| (srcType.isAllowingMultipleEdges() ? FLAG_MULTIPLE_EDGES : 0)
+			| (srcType.isAllowingCycles() ? FLAG_CYCLES : 0);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			BinaryOutput out = new BinaryOutput(channel, 64 * 1024);
+			out.writeInt(MAGIC)
+				.writeInt(VERSION)
+				.writeInt(flags)
+				.writeInt(vertexCount)
+				.writeInt(edgeCount)
+				.writeInt(hashTableSize)
+				.writeLong(0L); // reserved
+
+			long offset = 0;
+			out.writeLong(offset);
+			for (byte[] vertex : encoded) {
+				offset += vertex.length;
+				out.writeLong(offset);
+			}
+			for (int slot : table) {
+				out.writeInt(slot);
+			}
+			for (int e = 0; e < edgeCount; e++) {
+				out.writeInt(graph.source(e));
+			}
+			for (int e = 0; e < edgeCount; e++) {
+				out.writeInt(graph.target(e));
+			}
+			writeAdjacency(out, vertexCount, graph::outDegree, graph::outEdge);
+			writeAdjacency(out, vertexCount, graph::inDegree, graph::inEdge);
+			if (srcType.isWeighted()) {
+				for (int e = 0; e < edgeCount; e++) {
+					out.writeDouble(src.getEdgeWeight(graph.edge(e)));
+				}
+			}
+			for (byte[] vertex : encoded) {
+				out.writeRaw(vertex);
+			}
+			out.flush();
+		}
+	}
+
+	private interface Degree {
+		int of(int vertex);
+	}
+
+	private interface AdjacentEdge {
+		int of(int vertex, int index);
+	}
+
+	private static void writeAdjacency(BinaryOutput out, int vertexCount, Degree degree, AdjacentEdge edge) throws IOException {
+		int offset = 0;
+		out.writeInt(offset);
+		for (int v = 0; v < vertexCount; v++) {
+			offset += degree.of(v);
+			out.writeInt(offset);
+		}
+		for (int v = 0; v < vertexCount; v++) {
+			for (int i = 0; i < degree.of(v); i++) {
+				out.writeInt(edge.of(v, i));
+			}
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.jgrapht.Graph;
+
+/**
+ * holds the installed {@link GraphMetrics}, callers check for null before measuring anything
+ */
+final class Metrics {
+
+	private static volatile GraphMetrics listener;
+
+	private Metrics() {
+		// no instance
+	}
+
+	static void install(GraphMetrics metrics) {
+		listener = metrics;
+	}
+
+	static GraphMetrics listener() {
+		return listener;
+	}
+
+	static <T> T measure(GraphMetrics metrics, String operation, Graph<?, ?> graph, Supplier<T> action) {
+		return measure(metrics, operation, graph, measurement -> action.get());
+	}
+
+	/**
+	 * times only the action, which may add counts and sizes to the measurement it is given
+	 */
+	static <T> T measure(GraphMetrics metrics, String operation, Graph<?, ?> graph, Function<ImmutableMeasurement.Builder, T> action) {
+		ImmutableMeasurement.Builder measurement = ImmutableMeasurement.builder()
+			.operation(operation);
+		long start = System.nanoTime();
+		T ret = action.apply(measurement);
+		long duration = System.nanoTime() - start;
+		metrics.record(measurement
+			.durationNanos(duration)
+			.vertexCount(graph.vertexSet().size())
+			.edgeCount(graph.edgeSet().size())
+			.build());
+		return ret;
+	}
+
+	/**
+	 * heap bytes of an index built for src, the index of a {@link CompactDirectedGraph} already exists
+	 */
+	static long indexBytes(Graph<?, ?> src, IndexedGraph<?, ?> graph) {
+		return src instanceof CompactDirectedGraph ? 0L : graph.estimatedBytes();
+	}
+
+	/*
+	 * array sizes assume a 16 byte header, 4 byte references and 8 byte alignment
+	 */
+
+	static long ints(int length) {
+		return aligned(16L + 4L * length);
+	}
+
+	static long booleans(int length) {
+		return aligned(16L + length);
+	}
+
+	static long references(int length) {
+		return aligned(16L + 4L * length);
+	}
+
+	/**
+	 * table, entries and boxed values of a HashMap with Integer values
+	 */
+	static long hashMap(int size, int capacity) {
+		return 48L + references(capacity) + size * (32L + 16L);
+	}
+
+	private static long aligned(long bytes) {
+		return (bytes + 7L) & ~7L;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractBaseGraph;
+import org.jgrapht.graph.DefaultGraphType;
+import org.jgrapht.graph.GraphSpecificsStrategy;
+import org.jgrapht.graph.IntrusiveEdgesSpecifics;
+import org.jgrapht.graph.UniformIntrusiveEdgesSpecifics;
+import org.jgrapht.graph.WeightedIntrusiveEdgesSpecifics;
+import org.jgrapht.graph.specifics.DirectedSpecifics;
+import org.jgrapht.graph.specifics.Specifics;
+import org.jgrapht.util.SupplierUtil;
+
+/**
+ * directed graph with the same type as {@link org.jgrapht.graph.DefaultDirectedGraph}, but the vertex
+ * and edge maps are created with a capacity for the expected number of vertices and edges, so loading
+ * a known amount of vertices and edges does not rehash them
+ */
+public class PresizedDirectedGraph<V, E> extends AbstractBaseGraph<V, E> {
+
+	private static final long serialVersionUID = 1L;
+
+	public PresizedDirectedGraph(Class<? extends E> edgeClass, int expectedVertices, int expectedEdges) {
+		this(null, SupplierUtil.createSupplier(edgeClass), false, expectedVertices, expectedEdges);
+	}
+
+	public PresizedDirectedGraph(Supplier<V> vertexSupplier, Supplier<E> edgeSupplier, boolean weighted, int expectedVertices, int expectedEdges) {
+		super(vertexSupplier, edgeSupplier,
+			new DefaultGraphType.Builder()
+				.directed()
+				.allowMultipleEdges(false)
+				.allowSelfLoops(true)
+				.weighted(weighted)
+				.build(),
+			new PresizedStrategy<>(expectedVertices, expectedEdges));
+	}
+
+	private static final class PresizedStrategy<V, E> implements GraphSpecificsStrategy<V, E> {
+		private static final long serialVersionUID = 1L;
+
+		private final int expectedVertices;
+		private final int expectedEdges;
+
+		private PresizedStrategy(int expectedVertices, int expectedEdges) {
+			if (expectedVertices < 0 || expectedEdges < 0) {
+				throw new IllegalArgumentException("expected sizes must not be negative: " + expectedVertices + ", " + expectedEdges);
+			}
+			this.expectedVertices = expectedVertices;
+			this.expectedEdges = expectedEdges;
+		}
+
+		@Override
+		public Function<GraphType, IntrusiveEdgesSpecifics<V, E>> getIntrusiveEdgesSpecificsFactory() {
+			int edges = expectedEdges;
+			return (Function<GraphType, IntrusiveEdgesSpecifics<V, E>> & Serializable) type -> type.isWeighted()
+				? new WeightedIntrusiveEdgesSpecifics<>(new LinkedHashMap<>(capacityOf(edges)))
+				: new UniformIntrusiveEdgesSpecifics<>(new LinkedHashMap<>(capacityOf(edges)));
+		}
+
+		@Override
+		public BiFunction<Graph<V, E>, GraphType, Specifics<V, E>> getSpecificsFactory() {
+			int vertices = expectedVertices;
+			return (BiFunction<Graph<V, E>, GraphType, Specifics<V, E>> & Serializable) (graph, type) -> {
+				if (!type.isDirected()) {
+					throw new IllegalArgumentException("graph type is not directed: " + type);
+				}
+				return new DirectedSpecifics<>(graph, new LinkedHashMap<>(capacityOf(vertices)), getEdgeSetFactory());
+			};
+		}
+
+		private static int capacityOf(int expected) {
+			return Math.max(16, (int) (expected / 0.75f) + 1);
+		}
+	}
+}
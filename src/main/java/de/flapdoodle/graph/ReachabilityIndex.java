@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+
+/**
+ * answers reachability queries on a snapshot of a graph
+ * <p>
+ * strongly connected components are collapsed into a dag, every node of this dag is labeled
+ * with its dfs interval and the smallest post order number of all its descendants. Most
+ * queries are answered by these labels, only the remaining ones fall back to a pruned search.
+ * <p>
+ * As with {@link Graphs#hasPath(Graph, Object, Object)} a path
+ * must contain at least one edge and a vertex is never reachable from itself.
+ */
+public final class ReachabilityIndex<V> {
+
+	private final IndexedGraph<V, ?> graph;
+	private final StronglyConnectedComponents components;
+
+	private final int[] successorOffsets;
+	private final int[] successors;
+	private final int[] predecessorOffsets;
+	private final int[] predecessors;
+
+	private final int[] pre;
+	private final int[] post;
+	private final int[] low;
+
+	private ReachabilityIndex(IndexedGraph<V, ?> graph) {
+		this.graph = graph;
+		this.components = StronglyConnectedComponents.of(graph);
+
+		int count = components.count();
+		this.successorOffsets = new int[count + 1];
+		this.successors = components.condensedSuccessors(graph, successorOffsets);
+
+		this.predecessorOffsets = new int[count + 1];
+		this.predecessors = new int[successors.length];
+		for (int s : successors) {
+			predecessorOffsets[s + 1]++;
+		}
+		for (int c = 1; c <= count; c++) {
+			predecessorOffsets[c] += predecessorOffsets[c - 1];
+		}
+		int[] cursor = new int[count];
+		for (int c = 0; c < count; c++) {
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				int s = successors[i];
+				predecessors[predecessorOffsets[s] + cursor[s]++] = c;
+			}
+		}
+
+		this.pre = new int[count];
+		this.post = new int[count];
+		this.low = new int[count];
+		label();
+	}
+
+	public boolean hasPath(V from, V to) {
+		int source = indexOf(from, "source");
+		int target = indexOf(to, "target");
+		if (source == target) {
+			return false;
+		}
+		int sourceComponent = components.componentOf(source);
+		int targetComponent = components.componentOf(target);
+		return sourceComponent == targetComponent || reachable(sourceComponent, targetComponent);
+	}
+
+	/**
+	 * all vertices reachable from vertex, in graph order
+	 */
+	public Set<V> descendantsOf(V vertex) {
+		return collect(indexOf(vertex, "source"), successorOffsets, successors);
+	}
+
+	/**
+	 * all vertices vertex is reachable from, in graph order
+	 */
+	public Set<V> ancestorsOf(V vertex) {
+		return collect(indexOf(vertex, "target"), predecessorOffsets, predecessors);
+	}
+
+	private int indexOf(V vertex, String role) {
+		int index = graph.indexOf(vertex);
+		if (index == -1) {
+			throw new IllegalArgumentException("graph must contain the " + role + " vertex: " + vertex);
+		}
+		return index;
+	}
+
+	private boolean reachable(int from, int to) {
+		if (from < to || !mayReach(from, to)) {
+			return false;
+		}
+		if (pre[from] < pre[to] && post[to] < post[from]) {
+			return true;
+		}
+
+		BitSet visited = new BitSet(from + 1);
+		Deque<Integer> open = new ArrayDeque<>();
+		open.push(from);
+		visited.set(from);
+		while (!open.isEmpty()) {
+			int c = open.pop();
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				int s = successors[i];
+				if (s == to) {
+					return true;
+				}
+				if (!visited.get(s) && s > to && mayReach(s, to)) {
+					visited.set(s);
+					open.push(s);
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean mayReach(int from, int to) {
+		return low[from] <= low[to] && post[to] <= post[from];
+	}
+
+	private Set<V> collect(int vertex, int[] offsets, int[] neighbours) {
+		int start = components.componentOf(vertex);
+		BitSet reached = new BitSet(components.count());
+		Deque<Integer> open = new ArrayDeque<>();
+		open.push(start);
+		while (!open.isEmpty()) {
+			int c = open.pop();
+			for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+				int n = neighbours[i];
+				if (!reached.get(n)) {
+					reached.set(n);
+					open.push(n);
+				}
+			}
+		}
+		if (components.isCyclic(start)) {
+			reached.set(start);
+		}
+
+		int[] vertices = new int[graph.vertexCount()];
+		int size = 0;
+		for (int c = reached.nextSetBit(0); c >= 0; c = reached.nextSetBit(c + 1)) {
+			for (int i = 0; i < components.size(c); i++) {
+				int v = components.member(c, i);
+				if (v != vertex) {
+					vertices[size++] = v;
+				}
+			}
+		}
+		Arrays.sort(vertices, 0, size);
+
+		Set<V> ret = new LinkedHashSet<>();
+		for (int i = 0; i < size; i++) {
+			ret.add(graph.vertex(vertices[i]));
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	private void label() {
+		int count = components.count();
+		boolean[] visited = new boolean[count];
+		int[] callStack = new int[count];
+		int[] cursor = new int[count];
+		int preCounter = 0;
+		int postCounter = 0;
+
+		// highest component ids have no incoming edges, so start there
+		for (int start = count - 1; start >= 0; start--) {
+			if (visited[start]) {
+				continue;
+			}
+			int callStackSize = 0;
+			visited[start] = true;
+			pre[start] = preCounter++;
+			callStack[callStackSize++] = start;
+			cursor[start] = successorOffsets[start];
+
+			while (callStackSize > 0) {
+				int c = callStack[callStackSize - 1];
+				if (cursor[c] < successorOffsets[c + 1]) {
+					int s = successors[cursor[c]++];
+					if (!visited[s]) {
+						visited[s] = true;
+						pre[s] = preCounter++;
+						cursor[s] = successorOffsets[s];
+						callStack[callStackSize++] = s;
+					}
+				} else {
+					callStackSize--;
+					post[c] = postCounter++;
+				}
+			}
+		}
+
+		// successors always have a lower component id
+		for (int c = 0; c < count; c++) {
+			int min = post[c];
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				min = Math.min(min, low[successors[i]]);
+			}
+			low[c] = min;
+		}
+	}
+
+	public static <V> ReachabilityIndex<V> of(Graph<V, ?> graph) {
+		return new ReachabilityIndex<>(IndexedGraph.of(graph));
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * iterative tarjan over an indexed graph, components are numbered in reverse topological order,
+ * so every edge between two components points from a higher to a lower component id
+ */
+final class StronglyConnectedComponents {
+
+	private final int[] component;
+	private final int count;
+	private final boolean[] cyclic;
+	private final int[] memberOffsets;
+	private final int[] members;
+
+	private StronglyConnectedComponents(int[] component, int count, boolean[] cyclic) {
+		this.component = component;
+		this.count = count;
+		this.cyclic = cyclic;
+
+		this.memberOffsets = new int[count + 1];
+		this.members = new int[component.length];
+		for (int c : component) {
+			memberOffsets[c + 1]++;
+		}
+		for (int c = 1; c <= count; c++) {
+			memberOffsets[c] += memberOffsets[c - 1];
+		}
+		int[] cursor = new int[count];
+		for (int v = 0; v < component.length; v++) {
+			int c = component[v];
+			members[memberOffsets[c] + cursor[c]++] = v;
+		}
+	}
+
+	public int count() {
+		return count;
+	}
+
+	public int componentOf(int vertex) {
+		return component[vertex];
+	}
+
+	/**
+	 * true if the component contains more than one vertex or a vertex with an edge to itself
+	 */
+	public boolean isCyclic(int component) {
+		return cyclic[component];
+	}
+
+	public int size(int component) {
+		return memberOffsets[component + 1] - memberOffsets[component];
+	}
+
+	public int member(int component, int i) {
+		return members[memberOffsets[component] + i];
+	}
+
+	/**
+	 * heap bytes of the component tables and of the arrays tarjan used to find them
+	 */
+	public long estimatedBytes() {
+		int vertexCount = component.length;
+		long tarjan = 5 * Metrics.ints(vertexCount) + 2 * Metrics.booleans(vertexCount);
+		return tarjan
+			+ Metrics.ints(component.length) + Metrics.booleans(cyclic.length)
+			+ Metrics.ints(memberOffsets.length) + Metrics.ints(members.length) + Metrics.ints(count);
+	}
+
+	/**
+	 * successors of each component in the condensed dag without duplicates, stored as CSR in
+	 * offsets (length count()+1) and the returned array
+	 */
+	public int[] condensedSuccessors(IndexedGraph<?, ?> graph, int[] offsets) {
+		int[] lastSeen = new int[count];
+		Arrays.fill(lastSeen, -1);
+
+		int[] buffer = new int[graph.edgeCount()];
+		int size = 0;
+		for (int c = 0; c < count; c++) {
+			offsets[c] = size;
+			for (int i = 0; i < size(c); i++) {
+				int v = member(c, i);
+				for (int j = 0; j < graph.outDegree(v); j++) {
+					int s = component[graph.target(graph.outEdge(v, j))];
+					if (s != c && lastSeen[s] != c) {
+						lastSeen[s] = c;
+						buffer[size++] = s;
+					}
+				}
+			}
+		}
+		offsets[count] = size;
+		return Arrays.copyOf(buffer, size);
+	}
+
+	/**
+	 * one loop for each cyclic component, ordered by the first vertex of each component,
+	 * loop edges keep the order of the graph; each loop is built on first access
+	 */
+	public <V, E> List<Loop<V, E>> loops(IndexedGraph<V, E> graph) {
+		List<Supplier<Loop<V, E>>> ret = new ArrayList<>();
+
+		for (int c : cyclicComponentsInGraphOrder()) {
+			ret.add(() -> loopOf(graph, c, new int[outDegreeOf(graph, c)]));
+		}
+
+		return new LazyList<>(ret);
+	}
+
+	private int outDegreeOf(IndexedGraph<?, ?> graph, int c) {
+		int ret = 0;
+		for (int i = 0; i < size(c); i++) {
+			ret += graph.outDegree(member(c, i));
+		}
+		return ret;
+	}
+
+	/**
+	 * loop of a cyclic component, edges is a buffer big enough for all outgoing edges of the component
+	 */
+	public <V, E> Loop<V, E> loopOf(IndexedGraph<V, E> graph, int c, int[] edges) {
+		int edgeCount = 0;
+		for (int i = 0; i < size(c); i++) {
+			int v = member(c, i);
+			for (int j = 0; j < graph.outDegree(v); j++) {
+				int e = graph.outEdge(v, j);
+				if (component[graph.target(e)] == c) {
+					edges[edgeCount++] = e;
+				}
+			}
+		}
+		Arrays.sort(edges, 0, edgeCount);
+
+		ImmutableLoop.Builder<V, E> loopBuilder = ImmutableLoop.builder();
+		for (int i = 0; i < edgeCount; i++) {
+			loopBuilder.addEdges(graph.asEdge(edges[i]));
+		}
+		return loopBuilder.build();
+	}
+
+	private int[] cyclicComponentsInGraphOrder() {
+		int[] ret = new int[count];
+		int size = 0;
+		boolean[] seen = new boolean[count];
+		for (int v = 0; v < component.length; v++) {
+			int c = component[v];
+			if (cyclic[c] && !seen[c]) {
+				seen[c] = true;
+				ret[size++] = c;
+			}
+		}
+		return Arrays.copyOf(ret, size);
+	}
+
+	public static StronglyConnectedComponents of(IndexedGraph<?, ?> graph) {
+		int vertexCount = graph.vertexCount();
+
+		int[] index = new int[vertexCount];
+		int[] lowLink = new int[vertexCount];
+		int[] component = new int[vertexCount];
+		boolean[] onStack = new boolean[vertexCount];
+		int[] stack = new int[vertexCount];
+		int stackSize = 0;
+		int[] callStack = new int[vertexCount];
+		int[] edgeCursor = new int[vertexCount];
+		int callStackSize = 0;
+
+		Arrays.fill(index, -1);
+		int counter = 0;
+		int componentCount = 0;
+		boolean[] cyclic = new boolean[vertexCount];
+
+		for (int start = 0; start < vertexCount; start++) {
+			if (index[start] != -1) {
+				continue;
+			}
+
+			index[start] = lowLink[start] = counter++;
+			stack[stackSize++] = start;
+			onStack[start] = true;
+			callStack[callStackSize++] = start;
+
+			while (callStackSize > 0) {
+				int v = callStack[callStackSize - 1];
+				if (edgeCursor[v] < graph.outDegree(v)) {
+					int e = graph.outEdge(v, edgeCursor[v]++);
+					int w = graph.target(e);
+					if (index[w] == -1) {
+						index[w] = lowLink[w] = counter++;
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						callStack[callStackSize++] = w;
+					} else if (onStack[w]) {
+						lowLink[v] = Math.min(lowLink[v], index[w]);
+					}
+				} else {
+					callStackSize--;
+					if (lowLink[v] == index[v]) {
+						int size = 0;
+						int w;
+						do {
+							w = stack[--stackSize];
+							onStack[w] = false;
+							component[w] = componentCount;
+							size++;
+						} while (w != v);
+						if (size > 1) {
+							cyclic[componentCount] = true;
+						}
+						componentCount++;
+					}
+					if (callStackSize > 0) {
+						int parent = callStack[callStackSize - 1];
+						lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+					}
+				}
+			}
+		}
+
+		for (int e = 0; e < graph.edgeCount(); e++) {
+			if (graph.source(e) == graph.target(e)) {
+				cyclic[component[graph.source(e)]] = true;
+			}
+		}
+
+		return new StronglyConnectedComponents(component, componentCount, Arrays.copyOf(cyclic, componentCount));
+	}
+}
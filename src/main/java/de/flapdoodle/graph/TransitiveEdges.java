@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+/**
+ * transitive closure and reduction over the condensed graph, the descendants of each component
+ * are a bitset of component ids, filled from the sinks up (components are numbered in reverse
+ * topological order, so each successor has a lower id and is already done)
+ */
+final class TransitiveEdges<V, E> {
+
+	private final IndexedGraph<V, E> graph;
+	private final StronglyConnectedComponents components;
+	private final int[] successorOffsets;
+	private final int[] successors;
+	private final long[][] descendants;
+
+	private TransitiveEdges(IndexedGraph<V, E> graph) {
+		this.graph = graph;
+		this.components = StronglyConnectedComponents.of(graph);
+
+		int count = components.count();
+		this.successorOffsets = new int[count + 1];
+		this.successors = components.condensedSuccessors(graph, successorOffsets);
+
+		int words = (count + 63) >>> 6;
+		this.descendants = new long[count][];
+		for (int c = 0; c < count; c++) {
+			long[] bits = new long[words];
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				int s = successors[i];
+				bits[s >>> 6] |= 1L << s;
+				long[] ofSuccessor = descendants[s];
+				for (int w = 0; w < words; w++) {
+					bits[w] |= ofSuccessor[w];
+				}
+			}
+			descendants[c] = bits;
+		}
+	}
+
+	private DefaultDirectedGraph<V, DefaultEdge> closure() {
+		DefaultDirectedGraph<V, DefaultEdge> ret = new DefaultDirectedGraph<>(DefaultEdge.class);
+		graph.vertices().forEach(ret::addVertex);
+
+		int[] targets = new int[graph.vertexCount()];
+		for (int v = 0; v < graph.vertexCount(); v++) {
+			int c = components.componentOf(v);
+			int targetCount = 0;
+			if (components.isCyclic(c)) {
+				targetCount = addMembers(c, targets, targetCount);
+			}
+			long[] bits = descendants[c];
+			for (int w = 0; w < bits.length; w++) {
+				long word = bits[w];
+				while (word != 0) {
+					int d = (w << 6) + Long.numberOfTrailingZeros(word);
+					targetCount = addMembers(d, targets, targetCount);
+					word &= word - 1;
+				}
+			}
+			Arrays.sort(targets, 0, targetCount);
+			for (int i = 0; i < targetCount; i++) {
+				ret.addEdge(graph.vertex(v), graph.vertex(targets[i]));
+			}
+		}
+		return ret;
+	}
+
+	private int addMembers(int c, int[] targets, int targetCount) {
+		for (int i = 0; i < components.size(c); i++) {
+			targets[targetCount++] = components.member(c, i);
+		}
+		return targetCount;
+	}
+
+	private DefaultDirectedGraph<V, E> reduction(Graph<V, E> src) {
+		Set<Long> keep = new HashSet<>();
+		int words = descendants.length > 0 ? descendants[0].length : 0;
+		long[] covered = new long[words];
+		for (int c = 0; c < descendants.length; c++) {
+			Arrays.fill(covered, 0L);
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				long[] ofSuccessor = descendants[successors[i]];
+				for (int w = 0; w < words; w++) {
+					covered[w] |= ofSuccessor[w];
+				}
+			}
+			for (int i = successorOffsets[c]; i < successorOffsets[c + 1]; i++) {
+				int s = successors[i];
+				if ((covered[s >>> 6] & (1L << s)) == 0) {
+					keep.add(pair(c, s));
+				}
+			}
+		}
+
+		DefaultDirectedGraph<V, E> ret = new DefaultDirectedGraph<>(src.getVertexSupplier(), src.getEdgeSupplier(), src.getType().isWeighted());
+		graph.vertices().forEach(ret::addVertex);
+		for (int e = 0; e < graph.edgeCount(); e++) {
+			int source = components.componentOf(graph.source(e));
+			int target = components.componentOf(graph.target(e));
+			if (source == target || keep.remove(pair(source, target))) {
+				E edge = graph.edge(e);
+				if (ret.addEdge(graph.vertex(graph.source(e)), graph.vertex(graph.target(e)), edge) && src.getType().isWeighted()) {
+					ret.setEdgeWeight(edge, src.getEdgeWeight(edge));
+				}
+			}
+		}
+		return ret;
+	}
+
+	private static long pair(int source, int target) {
+		return ((long) source << 32) | target;
+	}
+
+	static <V, E> DefaultDirectedGraph<V, DefaultEdge> closureOf(Graph<V, E> src) {
+		return new TransitiveEdges<>(IndexedGraph.of(src)).closure();
+	}
+
+	static <V, E> DefaultDirectedGraph<V, E> reductionOf(Graph<V, E> src) {
+		return new TransitiveEdges<>(IndexedGraph.of(src)).reduction(src);
+	}
+}
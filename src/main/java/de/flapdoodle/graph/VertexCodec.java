@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * converts vertices to bytes and back, used by {@link GraphSerialization}
+ */
+public interface VertexCodec<V> {
+
+	byte[] encode(V vertex);
+
+	/**
+	 * @param bytes contains exactly the bytes of one encoded vertex
+	 */
+	V decode(ByteBuffer bytes);
+
+	static <V> VertexCodec<V> of(Function<? super V, byte[]> encode, Function<ByteBuffer, ? extends V> decode) {
+		return new VertexCodec<V>() {
+			@Override
+			public byte[] encode(V vertex) {
+				return encode.apply(vertex);
+			}
+
+			@Override
+			public V decode(ByteBuffer bytes) {
+				return decode.apply(bytes);
+			}
+		};
+	}
+
+	static VertexCodec<String> strings() {
+		return of(s -> s.getBytes(StandardCharsets.UTF_8), bytes -> StandardCharsets.UTF_8.decode(bytes).toString());
+	}
+
+	static VertexCodec<Integer> integers() {
+		return of(i -> ByteBuffer.allocate(Integer.BYTES).putInt(i).array(), ByteBuffer::getInt);
+	}
+}
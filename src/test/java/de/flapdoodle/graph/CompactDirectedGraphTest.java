@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static de.flapdoodle.graph.ReadOnlyGraphFixture.assertSameAlgorithmResults;
+import static de.flapdoodle.graph.ReadOnlyGraphFixture.assertSameStructure;
+import static de.flapdoodle.graph.ReadOnlyGraphFixture.sample;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactDirectedGraphTest {
+
+	@Test
+	void sameStructureAsSource() {
+		DefaultDirectedGraph<String, DefaultEdge> src = sample();
+		CompactDirectedGraph<String, DefaultEdge> compact = CompactDirectedGraph.of(src);
+
+		assertSameStructure(compact, src);
+		assertThat(compact.edgeSet()).containsExactlyElementsOf(src.edgeSet());
+		for (DefaultEdge e : src.edgeSet()) {
+			assertThat(compact.getEdge(src.getEdgeSource(e), src.getEdgeTarget(e))).isSameAs(e);
+		}
+		assertThat(compact.outgoingEdgesOf("A")).doesNotContain(src.getEdge("B", "C"));
+	}
+
+	@Test
+	void graphsAlgorithmsOnCompactGraph() {
+		DefaultDirectedGraph<String, DefaultEdge> src = sample();
+		CompactDirectedGraph<String, DefaultEdge> compact = CompactDirectedGraph.of(src);
+
+		assertSameAlgorithmResults(compact, src);
+		assertThat(Graphs.leavesOf(compact).toString()).isEqualTo(Graphs.leavesOf(src).toString());
+		assertThat(new HashSet<>(Graphs.loopsOf(compact))).isEqualTo(new HashSet<>(Graphs.loopsOf(src)));
+	}
+
+	@Test
+	void edgeLookupsWithCollidingHashes() {
+		DefaultDirectedGraph<String, SameHashEdge> src = new DefaultDirectedGraph<>(SameHashEdge.class);
+		for (int i = 0; i < 10; i++) {
+			src.addVertex("V" + i);
+			if (i > 0) {
+				src.addEdge("V" + (i - 1), "V" + i);
+			}
+		}
+		CompactDirectedGraph<String, SameHashEdge> compact = CompactDirectedGraph.of(src);
+
+		for (SameHashEdge e : src.edgeSet()) {
+			assertThat(compact.containsEdge(e)).isTrue();
+			assertThat(compact.getEdgeSource(e)).isEqualTo(src.getEdgeSource(e));
+			assertThat(compact.getEdgeTarget(e)).isEqualTo(src.getEdgeTarget(e));
+			assertThat(compact.outgoingEdgesOf(src.getEdgeSource(e))).contains(e);
+		}
+		SameHashEdge unknown = new SameHashEdge();
+		assertThat(compact.containsEdge(unknown)).isFalse();
+		assertThat(compact.edgeSet()).doesNotContain(unknown);
+		assertThatThrownBy(() -> compact.getEdgeSource(unknown))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void readOnly() {
+		CompactDirectedGraph<String, DefaultEdge> compact = CompactDirectedGraph.of(sample());
+
+		assertThatThrownBy(() -> compact.addVertex("X"))
+			.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> compact.addEdge("A", "C"))
+			.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> compact.removeVertex("A"))
+			.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> compact.vertexSet().remove("A"))
+			.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	static class SameHashEdge extends DefaultEdge {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+	}
+}
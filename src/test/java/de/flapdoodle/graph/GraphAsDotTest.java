@@ -19,8 +19,12 @@ package de.flapdoodle.graph;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -31,8 +35,10 @@ import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -56,6 +62,110 @@ class GraphAsDotTest {
 	}
 
 
+	@Test
+	void streamedGraphAsDot(@TempDir Path tempDir) throws IOException {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A","B","C");
+				builder.addEdge("A","B");
+				builder.addEdge("C","B");
+			});
+
+		GraphAsDot<String> graphAsDot = GraphAsDot.builder(Function.<String>identity())
+			.build();
+
+		StringWriter writer = new StringWriter();
+		graphAsDot.asDot(graph, writer);
+		assertThat(writer.toString())
+			.isEqualTo(dotFile("simple.dot"));
+
+		Path plain = tempDir.resolve("simple.dot");
+		graphAsDot.writeTo(graph, plain);
+		assertThat(new String(Files.readAllBytes(plain), StandardCharsets.UTF_8))
+			.isEqualTo(dotFile("simple.dot"));
+
+		Path gzipped = tempDir.resolve("simple.dot.gz");
+		graphAsDot.writeGzipTo(graph, gzipped);
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipped))) {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+			assertThat(new String(content.toByteArray(), StandardCharsets.UTF_8))
+				.isEqualTo(dotFile("simple.dot"));
+		}
+	}
+
+	@Test
+	void callbacksAreAppliedOncePerVertex() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A","B","C");
+				builder.addEdge("A","B");
+				builder.addEdge("C","B");
+				builder.addEdge("A","C");
+			});
+
+		Map<String, AtomicInteger> idCalls = new LinkedHashMap<>();
+		Map<String, AtomicInteger> subGraphCalls = new LinkedHashMap<>();
+		Map<String, AtomicInteger> sortKeyCalls = new LinkedHashMap<>();
+
+		GraphAsDot.builder((String v) -> {
+				idCalls.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+				return v;
+			})
+			.subGraph(v -> {
+				subGraphCalls.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+				return Optional.empty();
+			})
+			.sortedBy(v -> {
+				sortKeyCalls.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+				return v;
+			})
+			.build()
+			.asDot(graph);
+
+		assertThat(idCalls).containsOnlyKeys("A", "B", "C");
+		assertThat(idCalls.values()).allMatch(count -> count.get() == 1);
+		assertThat(subGraphCalls).containsOnlyKeys("A", "B", "C");
+		assertThat(subGraphCalls.values()).allMatch(count -> count.get() == 1);
+		assertThat(sortKeyCalls).containsOnlyKeys("A", "B", "C");
+		assertThat(sortKeyCalls.values()).allMatch(count -> count.get() == 1);
+	}
+
+	@Test
+	void callbacksAreAppliedOncePerEqualVertex() {
+		String innerA = new String("A");
+		DefaultDirectedGraph<String, DefaultEdge> inner = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices(innerA, "B");
+				builder.addEdge(innerA, "B");
+			});
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "S");
+				builder.addEdge("A", "S");
+			});
+
+		Map<String, AtomicInteger> idCalls = new LinkedHashMap<>();
+
+		String dot = GraphAsDot.builder((String v) -> {
+				idCalls.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+				return v;
+			})
+			.subGraph(v -> v.equals("S")
+				? Optional.of(GraphAsDot.SubGraph.<String>of(inner).putConnections("A", innerA).build())
+				: Optional.empty())
+			.build()
+			.asDot(graph);
+
+		assertThat(dot).contains("\"A\" -> \"S:A\";");
+		assertThat(idCalls).containsOnlyKeys("A", "B", "S");
+		assertThat(idCalls.values()).allMatch(count -> count.get() == 1);
+	}
+
 	@Test
 	void subGraphAsDot() {
 		Vertex.Named oneX = Vertex.Named.of("x");
@@ -143,6 +253,56 @@ class GraphAsDotTest {
 			.isEqualTo(dotFile("subgraph.dot"));
 	}
 	
+	@Test
+	void parallelAsDotMatchesAsDot() {
+		Map<String, GraphAsDot.SubGraph<String>> subGraphs = new LinkedHashMap<>();
+		DefaultDirectedGraph<String, DefaultEdge> graph = clusters("root", 3, 40, subGraphs);
+
+		ImmutableGraphAsDot.Builder<String> builder = GraphAsDot.builder((String v) -> v)
+			.nodeAsLabel(v -> v.toUpperCase())
+			.subGraph(v -> Optional.ofNullable(subGraphs.get(v)));
+
+		GraphAsDot<String> unsorted = builder.build();
+		GraphAsDot<String> sorted = builder.sortedBy(v -> v).build();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertThat(unsorted.parallelAsDot(pool, graph)).isEqualTo(unsorted.asDot(graph));
+			assertThat(sorted.parallelAsDot(pool, graph))
+				.contains("subgraph cluster_1 {")
+				.isEqualTo(sorted.asDot(graph));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	private static DefaultDirectedGraph<String, DefaultEdge> clusters(String prefix, int depth, int width, Map<String, GraphAsDot.SubGraph<String>> subGraphs) {
+		return Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				String start = prefix + ".start";
+				builder.addVertex(start);
+				for (int i = 0; i < width; i++) {
+					String cluster = prefix + ".c" + i;
+					String in = cluster + ".in";
+					String out = cluster + ".out";
+					builder.addVertices(cluster, in, out);
+					builder.addEdge(start, in);
+					builder.addEdge(in, cluster);
+					builder.addEdge(cluster, out);
+					if (i > 0) {
+						builder.addEdge(prefix + ".c" + (i - 1) + ".out", in);
+					}
+					if (depth > 0 && i % 3 == 0) {
+						DefaultDirectedGraph<String, DefaultEdge> inner = clusters(cluster, depth - 1, width / 4, subGraphs);
+						subGraphs.put(cluster, GraphAsDot.SubGraph.<String>of(inner)
+							.putConnections(in, cluster + ".start")
+							.putConnections(out, cluster + ".start")
+							.build());
+					}
+				}
+			});
+	}
+
 	private static Map<String, String> mapOf(String k1, String v1) {
 		LinkedHashMap<String, String> ret = new LinkedHashMap<>();
 		ret.put(k1,v1);
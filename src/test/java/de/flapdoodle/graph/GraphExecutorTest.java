@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GraphExecutorTest {
+
+	private ExecutorService executorService;
+
+	@BeforeEach
+	void startExecutor() {
+		executorService = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	void stopExecutor() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	void verticesStartAfterAllPredecessorsAreDone() throws Exception {
+		Random random = new Random(3);
+		DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.Directed.newInstance();
+		for (int v = 0; v < 200; v++) {
+			graph.addVertex(v);
+			for (int e = 0; e < 3 && v > 0; e++) {
+				graph.addEdge(random.nextInt(v), v);
+			}
+		}
+
+		AtomicLong clock = new AtomicLong();
+		Map<Integer, Long> started = new ConcurrentHashMap<>();
+		Map<Integer, Long> finished = new ConcurrentHashMap<>();
+
+		GraphExecutor.of(graph, executorService)
+			.execute(v -> {
+				started.put(v, clock.incrementAndGet());
+				finished.put(v, clock.incrementAndGet());
+			})
+			.get(10, TimeUnit.SECONDS);
+
+		assertThat(finished).hasSize(200);
+		for (DefaultEdge edge : graph.edgeSet()) {
+			assertThat(finished.get(graph.getEdgeSource(edge)))
+				.isLessThan(started.get(graph.getEdgeTarget(edge)));
+		}
+	}
+
+	@Test
+	void longChainOnDirectExecutor() throws Exception {
+		DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.Directed.newInstance();
+		int count = 100000;
+		for (int v = 0; v < count; v++) {
+			graph.addVertex(v);
+			if (v > 0) {
+				graph.addEdge(v - 1, v);
+			}
+		}
+
+		List<Integer> order = new ArrayList<>();
+		GraphExecutor.of(graph, Runnable::run)
+			.execute(order::add)
+			.get(10, TimeUnit.SECONDS);
+
+		assertThat(order).hasSize(count);
+		for (int i = 0; i < count; i++) {
+			assertThat(order.get(i)).isEqualTo(i);
+		}
+	}
+
+	@Test
+	void slowVertexDoesNotBlockIndependentVertices() throws Exception {
+		DefaultDirectedGraph<String, DefaultEdge> graph = GraphBuilder.<String>withDirectedGraph()
+			.addEdgeChain("slow", "afterSlow")
+			.addEdgeChain("fast", "afterFast", "afterAfterFast")
+			.build();
+
+		CountDownLatch fastBranchDone = new CountDownLatch(1);
+		List<String> done = Collections.synchronizedList(new ArrayList<>());
+
+		GraphExecutor.of(graph, executorService)
+			.execute(v -> {
+				if (v.equals("slow")) {
+					try {
+						assertThat(fastBranchDone.await(10, TimeUnit.SECONDS)).isTrue();
+					}
+					catch (InterruptedException ix) {
+						throw new RuntimeException(ix);
+					}
+				}
+				done.add(v);
+				if (v.equals("afterAfterFast")) {
+					fastBranchDone.countDown();
+				}
+			})
+			.get(10, TimeUnit.SECONDS);
+
+		assertThat(done).containsExactly("fast", "afterFast", "afterAfterFast", "slow", "afterSlow");
+	}
+
+	@Test
+	void failureStopsDependentVertices() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = GraphBuilder.<String>withDirectedGraph()
+			.addEdgeChain("A", "B", "C")
+			.build();
+
+		List<String> done = Collections.synchronizedList(new ArrayList<>());
+
+		assertThatThrownBy(() -> GraphExecutor.of(graph, executorService)
+			.execute(v -> {
+				if (v.equals("B")) {
+					throw new IllegalStateException("failed: " + v);
+				}
+				done.add(v);
+			})
+			.get(10, TimeUnit.SECONDS))
+			.isInstanceOf(ExecutionException.class)
+			.hasCauseInstanceOf(IllegalStateException.class);
+
+		assertThat(done).containsExactly("A");
+	}
+
+	@Test
+	void cancelStopsPendingVertices() throws Exception {
+		DefaultDirectedGraph<String, DefaultEdge> graph = GraphBuilder.<String>withDirectedGraph()
+			.addEdgeChain("A", "B", "C")
+			.build();
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch cancelled = new CountDownLatch(1);
+		List<String> done = Collections.synchronizedList(new ArrayList<>());
+
+		CompletableFuture<Void> result = GraphExecutor.of(graph, executorService)
+			.execute(v -> {
+				started.countDown();
+				try {
+					assertThat(cancelled.await(10, TimeUnit.SECONDS)).isTrue();
+				}
+				catch (InterruptedException ix) {
+					throw new RuntimeException(ix);
+				}
+				done.add(v);
+			});
+
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(result.cancel(false)).isTrue();
+		cancelled.countDown();
+
+		executorService.shutdown();
+		assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(result).isCancelled();
+		assertThat(done).containsExactly("A");
+	}
+
+	@Test
+	void loopPolicies() throws Exception {
+		DefaultDirectedGraph<String, DefaultEdge> graph = GraphBuilder.<String>withDirectedGraph()
+			.addEdgeChain("A", "B", "C", "D")
+			.addEdge("C", "B")
+			.build();
+
+		assertThatThrownBy(() -> GraphExecutor.of(graph, executorService))
+			.isInstanceOf(IllegalArgumentException.class);
+
+		List<String> sequential = Collections.synchronizedList(new ArrayList<>());
+		GraphExecutor.of(graph, executorService, GraphExecutor.LoopPolicy.SEQUENTIAL)
+			.execute(sequential::add)
+			.get(10, TimeUnit.SECONDS);
+		assertThat(sequential).containsExactly("A", "B", "C", "D");
+
+		List<String> parallel = Collections.synchronizedList(new ArrayList<>());
+		GraphExecutor.of(graph, executorService, GraphExecutor.LoopPolicy.PARALLEL)
+			.execute(parallel::add)
+			.get(10, TimeUnit.SECONDS);
+		assertThat(parallel).hasSize(4);
+		assertThat(parallel.get(0)).isEqualTo("A");
+		assertThat(parallel.subList(1, 3)).containsExactlyInAnyOrder("B", "C");
+		assertThat(parallel.get(3)).isEqualTo("D");
+	}
+}
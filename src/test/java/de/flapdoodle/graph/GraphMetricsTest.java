@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphMetricsTest {
+
+	@AfterEach
+	void uninstall() {
+		GraphMetrics.uninstall();
+	}
+
+	private static DefaultDirectedGraph<String, DefaultEdge> sample() {
+		return Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "D");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("D", "C");
+			});
+	}
+
+	@Test
+	void measurementsOfGraphOperations() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = sample();
+		List<GraphMetrics.Measurement> measurements = new ArrayList<>();
+		GraphMetrics.install(measurements::add);
+
+		Graphs.leavesOf(graph);
+		Graphs.loopsOf(graph);
+		Graphs.hasPath(graph, "A", "D");
+		Graphs.filter(graph, v -> !v.equals("A"));
+		GraphAsDot.builder(Function.<String>identity()).label("graph").build().asDot(graph);
+
+		assertThat(measurements).extracting(GraphMetrics.Measurement::operation)
+			.containsExactly("leavesOf", "loopsOf", "hasPath", "filter", "asDot");
+		assertThat(measurements).allSatisfy(m -> {
+			assertThat(m.vertexCount()).isEqualTo(4);
+			assertThat(m.edgeCount()).isEqualTo(4);
+			assertThat(m.durationNanos()).isGreaterThanOrEqualTo(0L);
+		});
+		assertThat(measurements.get(0).layerCount()).isEqualTo(3);
+		assertThat(measurements.get(0).loopCount()).isEqualTo(1);
+		assertThat(measurements.get(0).estimatedBytes()).isGreaterThan(0L);
+		assertThat(measurements.get(1).loopCount()).isEqualTo(1);
+	}
+
+	@Test
+	void countsAndSizesOfTheOperation() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = sample();
+		graph.addVertex("X");
+		graph.addVertex("Y");
+		graph.addEdge("X", "Y");
+		graph.addEdge("Y", "X");
+		CompactDirectedGraph<String, DefaultEdge> compact = CompactDirectedGraph.of(graph);
+		List<GraphMetrics.Measurement> measurements = new ArrayList<>();
+		GraphMetrics.install(measurements::add);
+
+		Graphs.leavesOf(graph);
+		Graphs.leavesOf(compact);
+		Graphs.loopsOf(graph);
+
+		assertThat(measurements.get(0).layerCount()).isEqualTo(3);
+		assertThat(measurements.get(0).loopCount()).isEqualTo(2);
+		assertThat(measurements.get(1).loopCount()).isEqualTo(2);
+		assertThat(measurements.get(1).estimatedBytes()).isGreaterThan(0L)
+			.isLessThan(measurements.get(0).estimatedBytes());
+		assertThat(measurements.get(2).loopCount()).isEqualTo(2);
+	}
+
+	@Test
+	void nothingIsMeasuredWhenUninstalled() {
+		List<GraphMetrics.Measurement> measurements = new ArrayList<>();
+		GraphMetrics.install(measurements::add);
+		GraphMetrics.uninstall();
+
+		Graphs.leavesOf(sample());
+
+		assertThat(measurements).isEmpty();
+	}
+
+	@Test
+	void histogramPerOperation() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = sample();
+		HistogramGraphMetrics histogram = new HistogramGraphMetrics();
+		GraphMetrics.install(histogram);
+
+		for (int i = 0; i < 10; i++) {
+			Graphs.rootsOf(graph);
+		}
+		Graphs.loopsOf(graph);
+
+		Map<String, HistogramGraphMetrics.Histogram> snapshot = histogram.snapshot();
+		assertThat(snapshot).containsOnlyKeys("loopsOf", "rootsOf");
+
+		HistogramGraphMetrics.Histogram rootsOf = snapshot.get("rootsOf");
+		assertThat(rootsOf.count()).isEqualTo(10);
+		assertThat(rootsOf.totalVertices()).isEqualTo(40);
+		assertThat(rootsOf.totalLayers()).isEqualTo(30);
+		assertThat(rootsOf.buckets().stream().mapToLong(Long::longValue).sum()).isEqualTo(10);
+		assertThat(rootsOf.percentileNanos(100)).isGreaterThanOrEqualTo(rootsOf.maxNanos());
+		assertThat(rootsOf.percentileNanos(50)).isLessThanOrEqualTo(rootsOf.percentileNanos(100));
+
+		histogram.reset();
+		assertThat(histogram.snapshot()).isEmpty();
+	}
+}
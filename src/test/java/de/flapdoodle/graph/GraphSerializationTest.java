@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.DirectedPseudograph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GraphSerializationTest {
+
+	private static DefaultDirectedGraph<String, DefaultEdge> sample() {
+		return Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "Ca", "D", "Da", "Db", "Dc", "Über");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("C", "Ca");
+				builder.addEdge("D", "Da");
+				builder.addEdge("D", "Db");
+				builder.addEdge("D", "Dc");
+				builder.addEdge("Dc", "C");
+			});
+	}
+
+	@Test
+	void graphRoundTripThroughChannel() throws IOException {
+		DefaultDirectedGraph<String, DefaultEdge> src = sample();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GraphSerialization.writeGraph(src, VertexCodec.strings(), Channels.newChannel(bytes));
+
+		DefaultDirectedGraph<String, DefaultEdge> read = GraphSerialization.readGraph(
+			Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), VertexCodec.strings(), Graphs.Directed.factory(DefaultEdge.class));
+
+		assertThat(read.vertexSet()).containsExactlyElementsOf(src.vertexSet());
+		assertThat(read.edgeSet()).hasSameSizeAs(src.edgeSet());
+		src.edgeSet().forEach(e -> assertThat(read.containsEdge(src.getEdgeSource(e), src.getEdgeTarget(e))).isTrue());
+		assertThat(Graphs.leavesOf(read).toString()).isEqualTo(Graphs.leavesOf(src).toString());
+	}
+
+	@Test
+	void weightedGraphRoundTripThroughMappedFile(@TempDir Path tempDir) throws IOException {
+		DefaultDirectedWeightedGraph<Integer, DefaultWeightedEdge> src = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+		for (int i = 0; i < 1000; i++) {
+			src.addVertex(i);
+			if (i > 0) {
+				src.setEdgeWeight(src.addEdge(i, i / 2), i * 0.5);
+			}
+		}
+
+		Path file = tempDir.resolve("graph.bin");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			GraphSerialization.writeGraph(src, VertexCodec.integers(), channel);
+		}
+
+		DefaultDirectedGraph<Integer, DefaultWeightedEdge> read = GraphSerialization.readGraph(file, VertexCodec.integers(),
+			() -> new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class));
+
+		assertThat(read.vertexSet()).containsExactlyElementsOf(src.vertexSet());
+		assertThat(read.edgeSet()).hasSize(999);
+		assertThat(read.getEdgeWeight(read.getEdge(999, 499))).isEqualTo(499.5);
+
+		assertThatThrownBy(() -> GraphSerialization.readGraph(file, VertexCodec.integers(), Graphs.Directed.factory(DefaultWeightedEdge.class)))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void layersRoundTrip(@TempDir Path tempDir) throws IOException {
+		DefaultDirectedGraph<String, DefaultEdge> src = sample();
+		List<VerticesAndEdges<String, DefaultEdge>> layers = Graphs.leavesOf(src);
+
+		Path file = tempDir.resolve("layers.bin");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			GraphSerialization.writeLayers(layers, VertexCodec.strings(), channel);
+		}
+
+		assertThat(GraphSerialization.readLayers(file, VertexCodec.strings(), src).toString()).isEqualTo(layers.toString());
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			assertThat(GraphSerialization.readLayers(channel, VertexCodec.strings(), src)).hasToString(layers.toString());
+		}
+		assertThatThrownBy(() -> GraphSerialization.readGraph(file, VertexCodec.strings(), Graphs.Directed.factory(DefaultEdge.class)))
+			.isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void edgesRejectedByTheGraphFactoryAreNotDropped() throws IOException {
+		DirectedPseudograph<String, DefaultEdge> src = new DirectedPseudograph<>(DefaultEdge.class);
+		src.addVertex("A");
+		src.addVertex("B");
+		src.addEdge("A", "B");
+		src.addEdge("A", "B");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GraphSerialization.writeGraph(src, VertexCodec.strings(), Channels.newChannel(bytes));
+
+		assertThatThrownBy(() -> GraphSerialization.readGraph(
+			Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), VertexCodec.strings(), Graphs.Directed.factory(DefaultEdge.class)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("A -> B");
+	}
+
+	@Test
+	void layersWithMultipleEdgesAreRejected() throws IOException {
+		DirectedPseudograph<String, DefaultEdge> multigraph = new DirectedPseudograph<>(DefaultEdge.class);
+		multigraph.addVertex("A");
+		multigraph.addVertex("B");
+		multigraph.addEdge("A", "B");
+		multigraph.addEdge("A", "B");
+
+		assertThatThrownBy(() -> GraphSerialization.writeLayers(Graphs.leavesOf(multigraph), VertexCodec.strings(), Channels.newChannel(new ByteArrayOutputStream())))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("A -> B");
+
+		DefaultDirectedGraph<String, DefaultEdge> src = new DefaultDirectedGraph<>(DefaultEdge.class);
+		src.addVertex("A");
+		src.addVertex("B");
+		src.addEdge("A", "B");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GraphSerialization.writeLayers(Graphs.leavesOf(src), VertexCodec.strings(), Channels.newChannel(bytes));
+
+		assertThatThrownBy(() -> GraphSerialization.readLayers(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), VertexCodec.strings(), multigraph))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("A -> B");
+	}
+}
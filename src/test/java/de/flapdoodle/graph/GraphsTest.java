@@ -20,13 +20,29 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.junit.Test;
@@ -55,6 +71,87 @@ public class GraphsTest {
 		assertEquals("[(3 : 1), (5 : 1), (7 : 1)]", filtered.edgeSet().toString());
 	}
 	
+	@Test
+	public void parallelFilterGraph() {
+		DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(Integer.class, DefaultEdge.class)))
+				.build(builder -> {
+					for (int i = 0; i < 1000; i++) {
+						builder.addVertex(i);
+						if (i > 0) {
+							builder.addEdge(i, i / 2);
+						}
+					}
+				});
+
+		Map<Integer, AtomicInteger> calls = new ConcurrentHashMap<>();
+		List<Integer> filteredVertices = new ArrayList<>();
+		List<DefaultEdge> filteredEdges = new ArrayList<>();
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		DefaultDirectedGraph<Integer, DefaultEdge> filtered;
+		try {
+			filtered = Graphs.parallelFilter(pool, graph, v -> {
+				calls.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+				return v % 3 != 0;
+			}, filteredVertices::add, filteredEdges::add);
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		List<Integer> expectedFilteredVertices = new ArrayList<>();
+		List<DefaultEdge> expectedFilteredEdges = new ArrayList<>();
+		DefaultDirectedGraph<Integer, DefaultEdge> expected = Graphs.filter(graph, v -> v % 3 != 0, expectedFilteredVertices::add, expectedFilteredEdges::add);
+
+		assertEquals(expected.vertexSet().toString(), filtered.vertexSet().toString());
+		assertEquals(expected.edgeSet().toString(), filtered.edgeSet().toString());
+		assertEquals(expectedFilteredVertices, filteredVertices);
+		assertEquals(expectedFilteredEdges, filteredEdges);
+		assertEquals(1000, calls.size());
+		assertTrue(calls.values().stream().allMatch(count -> count.get() == 1));
+	}
+
+	@Test
+	public void filteredViewWithoutCopy() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A","B","C","Ca","D","Da","Db","Dc");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("C","Ca");
+				builder.addEdge("D","Da");
+				builder.addEdge("D","Db");
+				builder.addEdge("D","Dc");
+				builder.addEdge("Dc","C");
+			});
+
+		Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+		Graph<String, DefaultEdge> view = Graphs.filteredView(graph, v -> {
+			calls.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+			return !v.equals("Db");
+		}, edge -> !graph.getEdgeTarget(edge).equals("Ca"));
+
+		DefaultDirectedGraph<String, DefaultEdge> copy = Graphs.filter(graph, v -> !v.equals("Db"));
+		copy.removeEdge("C", "Ca");
+
+		assertEquals(copy.vertexSet().toString(), view.vertexSet().toString());
+		assertEquals(copy.edgeSet().toString(), view.edgeSet().toString());
+		assertEquals(Graphs.leavesOf(copy).toString(), Graphs.leavesOf(view).toString());
+		assertEquals(Graphs.rootsOf(copy).toString(), Graphs.rootsOf(view).toString());
+		assertEquals(Graphs.loopsOf(copy).toString(), Graphs.loopsOf(view).toString());
+		assertTrue(calls.values().stream().allMatch(count -> count.get() == 1));
+
+		graph.addVertex("E");
+		graph.addEdge("E", "A");
+		assertTrue(view.containsVertex("E"));
+		assertTrue(Graphs.hasPath(view, "E", "D"));
+
+		try {
+			view.addVertex("F");
+			fail("view should be read only");
+		} catch (UnsupportedOperationException ignore) {
+		}
+	}
+
 	@Test
 	public void collectionOfLeaves() {
 		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
@@ -216,6 +313,318 @@ public class GraphsTest {
 		assertEquals("[]",set.loops().toString());
 	}
 	
+	@Test
+	public void leavesAndRootsOfLongChainWithoutStackOverflow() {
+		DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(Integer.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertex(0);
+				for (int i = 1; i < 100000; i++) {
+					builder.addVertex(i);
+					builder.addEdge(i - 1, i);
+				}
+			});
+
+		List<VerticesAndEdges<Integer, DefaultEdge>> leaves = Graphs.leavesOf(graph);
+		assertEquals(100000, leaves.size());
+		assertEquals("[99999]", leaves.get(0).vertices().toString());
+		assertEquals("[0]", leaves.get(99999).vertices().toString());
+
+		List<VerticesAndEdges<Integer, DefaultEdge>> roots = Graphs.rootsOf(graph);
+		assertEquals(100000, roots.size());
+		assertEquals("[0]", roots.get(0).vertices().toString());
+		assertEquals("[99999]", roots.get(99999).vertices().toString());
+	}
+
+	@Test
+	public void loopsOfDeepGraphWithoutStackOverflow() {
+		DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(Integer.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertex(0);
+				for (int i = 1; i < 100000; i++) {
+					builder.addVertex(i);
+					builder.addEdge(i - 1, i);
+				}
+				builder.addEdge(99999, 50000);
+				builder.addEdge(10, 10);
+			});
+
+		List<? extends Loop<Integer, DefaultEdge>> loops = Graphs.loopsOf(graph);
+
+		assertEquals(2, loops.size());
+		assertEquals("[10]", loops.get(0).vertexSet().toString());
+		assertEquals(50000, loops.get(1).vertexSet().size());
+		assertEquals(50000, loops.get(1).edges().size());
+	}
+
+	@Test
+	public void layersAndLoopsAreComparableToBuiltValues() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "D");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("D", "B");
+			});
+
+		List<VerticesAndEdges<String, DefaultEdge>> roots = Graphs.rootsOf(graph);
+		VerticesAndEdges<String, DefaultEdge> first = roots.get(0);
+		Loop<String, DefaultEdge> loop = roots.get(1).loops().iterator().next();
+
+		VerticesAndEdges<String, DefaultEdge> builtFirst = ImmutableVerticesAndEdges.<String, DefaultEdge>builder()
+			.addVertices("A")
+			.addEdges(ImmutableEdge.of("A", "B", graph.getEdge("A", "B")))
+			.build();
+		assertEquals(first, builtFirst);
+		assertEquals(builtFirst, first);
+		assertEquals(first.hashCode(), builtFirst.hashCode());
+		assertTrue(new HashSet<>(Arrays.asList(builtFirst)).contains(first));
+		assertTrue(new HashSet<>(Arrays.asList(first)).contains(builtFirst));
+		assertTrue(roots.get(0) == first);
+
+		Loop<String, DefaultEdge> builtLoop = ImmutableLoop.<String, DefaultEdge>builder()
+			.addEdges(ImmutableEdge.of("B", "C", graph.getEdge("B", "C")))
+			.addEdges(ImmutableEdge.of("C", "D", graph.getEdge("C", "D")))
+			.addEdges(ImmutableEdge.of("D", "B", graph.getEdge("D", "B")))
+			.build();
+		assertEquals(loop, builtLoop);
+		assertEquals(builtLoop, loop);
+		assertEquals(loop.hashCode(), builtLoop.hashCode());
+		assertTrue(new HashSet<>(Arrays.asList(builtLoop)).contains(loop));
+		assertTrue(new HashSet<>(Arrays.asList(loop)).contains(builtLoop));
+		assertEquals(builtLoop.vertexSet(), loop.vertexSet());
+	}
+
+	@Test
+	public void transitiveReductionAndClosure() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "D", "E", "F");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("A", "C");
+				builder.addEdge("A", "D");
+				builder.addEdge("D", "E");
+				builder.addEdge("E", "D");
+				builder.addEdge("C", "E");
+				builder.addEdge("E", "F");
+			});
+
+		DefaultDirectedGraph<String, DefaultEdge> reduction = Graphs.transitiveReduction(graph);
+
+		assertEquals(graph.vertexSet(), reduction.vertexSet());
+		assertEquals("[(A : B), (B : C), (C : D), (D : E), (E : D), (E : F)]", reduction.edgeSet().toString());
+		assertTrue(reduction.edgeSet().stream().allMatch(graph::containsEdge));
+		assertEquals(9, graph.edgeSet().size());
+
+		DefaultDirectedGraph<String, DefaultEdge> closure = Graphs.transitiveClosure(graph);
+
+		assertEquals("[(A : B), (A : C), (A : D), (A : E), (A : F), (B : C), (B : D), (B : E), (B : F), (C : D), (C : E), (C : F), "
+			+ "(D : D), (D : E), (D : F), (E : D), (E : E), (E : F)]", closure.edgeSet().toString());
+		for (String from : graph.vertexSet()) {
+			for (String to : graph.vertexSet()) {
+				assertEquals(from + " -> " + to, from.equals(to) ? closure.containsEdge(from, to) : Graphs.hasPath(graph, from, to), closure.containsEdge(from, to));
+			}
+		}
+	}
+
+	@Test
+	public void cyclesOfLoopShortestFirst() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "D");
+				builder.addEdgeChain("A", "B", "C", "D", "A");
+				builder.addEdge("B", "A");
+				builder.addEdge("C", "A");
+				builder.addEdge("C", "C");
+			});
+
+		Loop<String, DefaultEdge> loop = Graphs.loopsOf(graph).get(0);
+
+		assertEquals("[[C], [A, B], [A, B, C], [A, B, C, D]]", loop.cycles().collect(Collectors.toList()).toString());
+		assertEquals("[[C], [A, B]]", loop.cycles().limit(2).collect(Collectors.toList()).toString());
+		assertEquals("[]", loop.cycles(Duration.ZERO).collect(Collectors.toList()).toString());
+	}
+
+	@Test
+	public void cyclesOfCompleteGraphAreBounded() {
+		DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(Integer.class, DefaultEdge.class)))
+			.build(builder -> {
+				for (int i = 0; i < 30; i++) {
+					builder.addVertex(i);
+				}
+				for (int i = 0; i < 30; i++) {
+					for (int j = 0; j < 30; j++) {
+						if (i != j) {
+							builder.addEdge(i, j);
+						}
+					}
+				}
+			});
+
+		Loop<Integer, DefaultEdge> loop = Graphs.loopsOf(graph).get(0);
+
+		List<List<Integer>> cycles = loop.cycles().limit(1000).collect(Collectors.toList());
+		assertEquals(1000, cycles.size());
+		assertEquals(435, cycles.stream().filter(c -> c.size() == 2).count());
+		assertEquals(1000, new HashSet<>(cycles).size());
+		assertEquals(10, loop.cycles(Duration.ofMinutes(1)).limit(10).count());
+
+		long start = System.nanoTime();
+		loop.cycles(Duration.ofMillis(50)).count();
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+	}
+
+	@Test
+	public void cycleBudgetStartsWithTheSearch() throws InterruptedException {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B");
+				builder.addEdgeChain("A", "B", "A");
+			});
+
+		Stream<List<String>> cycles = Graphs.loopsOf(graph).get(0).cycles(Duration.ofMillis(500));
+		Thread.sleep(600);
+
+		assertEquals(1, cycles.count());
+	}
+
+	@Test
+	public void feedbackArcSetBreaksAllLoops() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "D", "X", "Y");
+				builder.addEdgeChain("A", "B", "C", "D", "A");
+				builder.addEdge("X", "Y");
+				builder.addEdge("Y", "X");
+				builder.addEdge("D", "D");
+				builder.addEdge("D", "X");
+			});
+
+		Set<Edge<String, DefaultEdge>> feedbackArcSet = Graphs.feedbackArcSet(graph);
+
+		assertEquals(3, feedbackArcSet.size());
+		assertTrue(feedbackArcSet.stream().anyMatch(e -> e.start().equals("D") && e.end().equals("D")));
+
+		feedbackArcSet.forEach(e -> graph.removeEdge(e.edge()));
+		assertTrue(Graphs.loopsOf(graph).isEmpty());
+	}
+
+	@Test
+	public void feedbackArcSetOfRandomGraphs() {
+		Random random = new Random(42);
+		for (int run = 0; run < 200; run++) {
+			int vertices = 1 + random.nextInt(30);
+			int edges = random.nextInt(vertices * 3);
+			DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(Integer.class, DefaultEdge.class)))
+				.build(builder -> {
+					for (int i = 0; i < vertices; i++) {
+						builder.addVertex(i);
+					}
+					for (int i = 0; i < edges; i++) {
+						builder.addEdge(random.nextInt(vertices), random.nextInt(vertices));
+					}
+				});
+
+			Graphs.loopsOf(graph).forEach(loop -> {
+				Set<Edge<Integer, DefaultEdge>> feedbackArcSet = loop.feedbackArcSet();
+				assertTrue(loop.edges().containsAll(feedbackArcSet));
+				assertTrue(feedbackArcSet.size() < loop.edges().size() || loop.edges().size() == 1);
+			});
+			Graphs.feedbackArcSet(graph).forEach(e -> graph.removeEdge(e.edge()));
+			assertTrue(Graphs.loopsOf(graph).isEmpty());
+		}
+	}
+
+	@Test
+	public void criticalPathWithLoop() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A","B","C","D","E","F");
+				builder.addEdgeChain("A", "B", "F");
+				builder.addEdgeChain("A", "C", "D", "F");
+				builder.addEdge("D", "C");
+				builder.addEdge("E", "F");
+			});
+
+		Map<String, Double> cost = new HashMap<>();
+		cost.put("A", 1.0);
+		cost.put("B", 5.0);
+		cost.put("C", 2.0);
+		cost.put("D", 2.0);
+		cost.put("E", 3.0);
+		cost.put("F", 1.0);
+
+		CriticalPath<String> criticalPath = Graphs.criticalPath(graph, cost::get);
+
+		assertEquals("[A, B, F]", criticalPath.path().toString());
+		assertEquals(7.0, criticalPath.length(), 0.0);
+		assertEquals("{A=0.0, B=0.0, C=1.0, D=1.0, E=3.0, F=0.0}", criticalPath.slack().toString());
+	}
+
+	@Test
+	public void criticalPathSlackIsZeroForCostsWithoutExactDoubles() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A","B","C","D","E");
+				builder.addEdgeChain("A", "B", "C");
+				builder.addEdgeChain("A", "D", "C");
+				builder.addEdge("A", "E");
+			});
+
+		Map<String, Double> cost = new HashMap<>();
+		cost.put("A", 0.1);
+		cost.put("B", 0.2);
+		cost.put("C", 0.3);
+		cost.put("D", 0.2);
+		cost.put("E", 0.1);
+
+		CriticalPath<String> criticalPath = Graphs.criticalPath(graph, cost::get);
+
+		assertEquals(3, criticalPath.path().size());
+		assertEquals(0.0, criticalPath.slack().get("A"), 0.0);
+		assertEquals(0.0, criticalPath.slack().get("B"), 0.0);
+		assertEquals(0.0, criticalPath.slack().get("C"), 0.0);
+		assertEquals(0.0, criticalPath.slack().get("D"), 0.0);
+		assertEquals(0.4, criticalPath.slack().get("E"), 1e-12);
+	}
+
+	@Test
+	public void condensationOfGraphWithLoop() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A","B","C","Ca","D","Da","Db","Dc");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("C","Ca");
+				builder.addEdge("D","Da");
+				builder.addEdge("D","Db");
+				builder.addEdge("D","Dc");
+				builder.addEdge("Dc","C");
+			});
+
+		Condensation<String, DefaultEdge> condensation = Graphs.condense(graph);
+		Graph<Condensation.Node<String, DefaultEdge>, DefaultEdge> dag = condensation.graph();
+
+		assertEquals(6, dag.vertexSet().size());
+		assertTrue(Graphs.loopsOf(dag).isEmpty());
+
+		Condensation.Node<String, DefaultEdge> loop = condensation.nodeOf().get("C");
+		assertTrue(loop.loop().isPresent());
+		assertEquals(loop.loop().get(), Graphs.loopsOf(graph).get(0));
+		assertEquals(loop, condensation.nodeOf().get("D"));
+		assertEquals(loop, condensation.nodeOf().get("Dc"));
+		assertEquals("[C, D, Dc]", loop.vertices().stream().sorted().collect(Collectors.toList()).toString());
+
+		Condensation.Node<String, DefaultEdge> b = condensation.nodeOf().get("B");
+		assertEquals("Optional[B]", b.vertex().toString());
+		assertTrue(dag.containsEdge(b, loop));
+		assertEquals(3, dag.outDegreeOf(loop));
+		assertEquals(condensation.nodeOf().get("A"), dag.vertexSet().iterator().next());
+
+		try {
+			dag.removeVertex(b);
+			fail("condensed graph should be read only");
+		} catch (UnsupportedOperationException ignore) {
+		}
+	}
+
 	@Test
 	public void graphBuilder() {
 		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
@@ -231,6 +640,70 @@ public class GraphsTest {
 		assertNotNull(graph);
 	}
 	
+	@Test
+	public void graphBuilderBulkLoad() {
+		DefaultDirectedGraph<String, DefaultEdge> src = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices(Arrays.asList("A", "B", "C", "X"));
+				builder.addEdgeChain("A", "B", "C");
+			});
+
+		List<Edge<String, DefaultEdge>> edges = src.edgeSet().stream()
+			.map(e -> (Edge<String, DefaultEdge>) ImmutableEdge.of(src.getEdgeSource(e), src.getEdgeTarget(e), e))
+			.collect(Collectors.toList());
+
+		DefaultDirectedGraph<String, DefaultEdge> fromIterable = GraphBuilder.<String, DefaultEdge>withDirectedGraph(DefaultEdge.class)
+			.addEdges(edges)
+			.build();
+		DefaultDirectedGraph<String, DefaultEdge> fromStream = GraphBuilder.<String, DefaultEdge>withDirectedGraph(DefaultEdge.class)
+			.addVertices(src.vertexSet())
+			.addEdges(edges.stream())
+			.build();
+
+		assertEquals("[A, B, C]", fromIterable.vertexSet().toString());
+		assertEquals(src.edgeSet(), fromIterable.edgeSet());
+		assertEquals("[A, B, C, X]", fromStream.vertexSet().toString());
+		assertEquals(src.edgeSet(), fromStream.edgeSet());
+
+		PresizedDirectedGraph<String, DefaultEdge> presized = GraphBuilder.<String, DefaultEdge>withDirectedGraph(DefaultEdge.class, 4, edges.size())
+			.addVertices(src.vertexSet())
+			.addEdges(edges)
+			.build();
+
+		assertEquals("[A, B, C, X]", presized.vertexSet().toString());
+		assertEquals(src.edgeSet(), presized.edgeSet());
+		assertEquals(src.getType().toString(), presized.getType().toString());
+		assertEquals(Graphs.leavesOf(src).toString(), Graphs.leavesOf(presized).toString());
+	}
+
+	@Test
+	public void parallelBuildMatchesSerialBuild() {
+		List<Integer> modules = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			modules.add(i);
+		}
+
+		LazyGraphBuilder<String, DefaultEdge, DefaultDirectedGraph<String, DefaultEdge>> lazyBuilder
+			= Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)));
+
+		DefaultDirectedGraph<String, DefaultEdge> serial = lazyBuilder.build(modules, (builder, i) -> {
+			builder.addEdgeChain("m" + i, "m" + (i / 2), "lib" + (i % 7));
+		});
+		ForkJoinPool pool = new ForkJoinPool(4);
+		DefaultDirectedGraph<String, DefaultEdge> parallel;
+		try {
+			parallel = lazyBuilder.parallelBuild(pool, modules, (builder, i) -> {
+				builder.addEdgeChain("m" + i, "m" + (i / 2), "lib" + (i % 7));
+			});
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		assertEquals(serial.vertexSet().toString(), parallel.vertexSet().toString());
+		assertEquals(serial.edgeSet().toString(), parallel.edgeSet().toString());
+	}
+
 	@Test
 	public void isShortestPathIsDirected() {
 		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
@@ -246,4 +719,69 @@ public class GraphsTest {
 		assertFalse(Graphs.hasPath(graph, "B", "C"));
 		assertFalse(Graphs.hasPath(graph, "B", "A"));
 	}
+
+	@Test
+	public void layersMatchReferenceOnRandomGraphs() {
+		Random random = new Random(1);
+		for (int round = 0; round < 500; round++) {
+			int vertexCount = 1 + random.nextInt(15);
+			DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.directedGraph(DefaultEdge.class);
+			for (int i = 0; i < vertexCount; i++) {
+				graph.addVertex(i);
+			}
+			int edgeCount = random.nextInt(vertexCount * 3);
+			for (int i = 0; i < edgeCount; i++) {
+				int a = random.nextInt(vertexCount);
+				int b = random.nextInt(vertexCount);
+				if (a != b || random.nextInt(5) == 0) {
+					graph.addEdge(a, b);
+				}
+			}
+
+			assertEquals(referenceLayers(graph, true), describe(Graphs.leavesOf(graph)));
+			assertEquals(referenceLayers(graph, false), describe(Graphs.rootsOf(graph)));
+		}
+	}
+
+	/**
+	 * removes one layer at a time from a copy, like leavesOf/rootsOf did before the single pass layering
+	 */
+	private static List<String> referenceLayers(DefaultDirectedGraph<Integer, DefaultEdge> src, boolean leaves) {
+		List<String> ret = new ArrayList<>();
+		DefaultDirectedGraph<Integer, DefaultEdge> current = src;
+		while (!current.vertexSet().isEmpty()) {
+			DefaultDirectedGraph<Integer, DefaultEdge> graph = current;
+			Set<Integer> layer = graph.vertexSet().stream()
+				.filter(v -> (leaves ? graph.outDegreeOf(v) : graph.inDegreeOf(v)) == 0)
+				.collect(Collectors.toCollection(HashSet::new));
+			if (!layer.isEmpty()) {
+				List<String> edges = graph.edgeSet().stream()
+					.filter(e -> layer.contains(graph.getEdgeSource(e)) || layer.contains(graph.getEdgeTarget(e)))
+					.map(e -> graph.getEdgeSource(e) + "->" + graph.getEdgeTarget(e))
+					.collect(Collectors.toList());
+				ret.add(describe(layer, edges, new ArrayList<>()));
+			} else {
+				List<Set<Integer>> loops = new KosarajuStrongConnectivityInspector<>(graph).stronglyConnectedSets().stream()
+					.filter(c -> c.size() > 1 || graph.containsEdge(c.iterator().next(), c.iterator().next()))
+					.collect(Collectors.toList());
+				loops.forEach(layer::addAll);
+				ret.add(describe(layer, new ArrayList<>(), loops));
+			}
+			current = Graphs.filter(graph, v -> !layer.contains(v));
+		}
+		return ret;
+	}
+
+	private static List<String> describe(List<VerticesAndEdges<Integer, DefaultEdge>> layers) {
+		return layers.stream()
+			.map(layer -> describe(layer.vertices(),
+				layer.edges().stream().map(e -> e.start() + "->" + e.end()).collect(Collectors.toList()),
+				layer.loops().stream().map(Loop::vertexSet).collect(Collectors.toList())))
+			.collect(Collectors.toList());
+	}
+
+	private static String describe(Set<Integer> vertices, List<String> edges, List<Set<Integer>> loops) {
+		return new TreeSet<>(vertices) + " " + new TreeSet<>(edges) + " "
+			+ loops.stream().map(TreeSet::new).map(Object::toString).sorted().collect(Collectors.toList());
+	}
 }
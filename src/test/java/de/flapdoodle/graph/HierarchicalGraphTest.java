@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HierarchicalGraphTest {
+
+	private final Map<String, GraphAsDot.SubGraph<String>> subGraphs = new HashMap<>();
+
+	private DefaultDirectedGraph<String, DefaultEdge> nested() {
+		DefaultDirectedGraph<String, DefaultEdge> deepest = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> builder.addEdgeChain("P", "Q"));
+
+		DefaultDirectedGraph<String, DefaultEdge> inner = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("X", "Deep", "Z");
+				builder.addEdgeChain("X", "Deep", "Z");
+			});
+
+		subGraphs.put("Deep", GraphAsDot.SubGraph.of(deepest)
+			.putConnections("X", "P")
+			.putConnections("Z", "Q")
+			.build());
+		subGraphs.put("Sub", GraphAsDot.SubGraph.of(inner)
+			.putConnections("A", "X")
+			.putConnections("C", "Z")
+			.build());
+
+		return Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "Sub", "C", "D");
+				builder.addEdgeChain("A", "Sub", "C", "D");
+				builder.addEdge("D", "Sub");
+			});
+	}
+
+	private static HierarchicalGraph.NestedVertex<String> vertex(String vertex, String... path) {
+		return ImmutableNestedVertex.of(Arrays.asList(path), vertex);
+	}
+
+	@Test
+	void flattenedVerticesAndEdges() {
+		HierarchicalGraph<String> graph = HierarchicalGraph.of(nested(), v -> Optional.ofNullable(subGraphs.get(v)));
+
+		assertThat(graph.vertexSet().stream().map(v -> String.join("/", v.path()) + ":" + v.vertex()).collect(Collectors.toList()))
+			.containsExactly(":A", "Sub:X", "Sub/Deep:P", "Sub/Deep:Q", "Sub:Z", ":C", ":D");
+		assertThat(graph.vertexSet()).hasSize(7);
+
+		assertThat(graph.edgeSet().stream().map(e -> e.source().vertex() + "->" + e.target().vertex()).collect(Collectors.toList()))
+			.containsExactly("A->X", "X->P", "P->Q", "Q->Z", "Z->C", "C->D");
+
+		assertThat(graph.containsVertex(vertex("X", "Sub"))).isTrue();
+		assertThat(graph.containsVertex(vertex("X"))).isFalse();
+		assertThat(graph.containsVertex(vertex("Sub"))).isFalse();
+		assertThat(graph.incomingEdgesOf(vertex("X", "Sub"))).extracting(HierarchicalGraph.NestedEdge::source).containsExactly(vertex("A"));
+		assertThat(graph.outgoingEdgesOf(vertex("Z", "Sub"))).extracting(HierarchicalGraph.NestedEdge::target).containsExactly(vertex("C"));
+		assertThat(graph.outgoingEdgesOf(vertex("D"))).isEmpty();
+		assertThat(graph.containsEdge(vertex("Q", "Sub", "Deep"), vertex("Z", "Sub"))).isTrue();
+		assertThatThrownBy(() -> graph.outDegreeOf(vertex("Y"))).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void graphsAlgorithmsOnFlattenedView() {
+		HierarchicalGraph<String> graph = HierarchicalGraph.of(nested(), v -> Optional.ofNullable(subGraphs.get(v)));
+
+		List<VerticesAndEdges<HierarchicalGraph.NestedVertex<String>, HierarchicalGraph.NestedEdge<String>>> roots = Graphs.rootsOf(graph);
+
+		assertThat(roots.stream().map(l -> l.vertices().stream().map(HierarchicalGraph.NestedVertex::vertex).collect(Collectors.toList())))
+			.containsExactly(Collections.singletonList("A"), Collections.singletonList("X"), Collections.singletonList("P"),
+				Collections.singletonList("Q"), Collections.singletonList("Z"), Collections.singletonList("C"), Collections.singletonList("D"));
+		assertThat(Graphs.loopsOf(graph)).isEmpty();
+		assertThat(Graphs.hasPath(graph, vertex("A"), vertex("D"))).isTrue();
+		assertThat(Graphs.hasPath(graph, vertex("P", "Sub", "Deep"), vertex("A"))).isFalse();
+	}
+}
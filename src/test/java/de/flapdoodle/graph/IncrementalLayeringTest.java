@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultListenableGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalLayeringTest {
+
+	@Test
+	void layersFollowGraphChanges() {
+		DefaultListenableGraph<String, DefaultEdge> graph = new DefaultListenableGraph<>(Graphs.Directed.newInstance());
+		IncrementalLayering<String, DefaultEdge> leaves = IncrementalLayering.leavesOf(graph);
+		IncrementalLayering<String, DefaultEdge> roots = IncrementalLayering.rootsOf(graph);
+
+		assertThat(leaves.layers()).isEmpty();
+
+		GraphBuilder.of(graph)
+			.addVertices("A", "B", "C", "Ca", "D", "Da", "Db", "Dc")
+			.addEdgeChain("A", "B", "C", "D")
+			.addEdge("C", "Ca")
+			.addEdge("D", "Da")
+			.addEdge("D", "Db")
+			.addEdge("D", "Dc");
+
+		assertThat(leaves.layers()).hasSize(5);
+		assertThat(leaves.layers().toString()).isEqualTo(Graphs.leavesOf(graph).toString());
+		assertThat(roots.layers().toString()).isEqualTo(Graphs.rootsOf(graph).toString());
+
+		graph.addEdge("Dc", "C");
+
+		assertThat(leaves.layers()).hasSize(4);
+		assertThat(leaves.layers().get(1).loops()).hasSize(1);
+		assertThat(leaves.layers().toString()).isEqualTo(Graphs.leavesOf(graph).toString());
+		assertThat(roots.layers().toString()).isEqualTo(Graphs.rootsOf(graph).toString());
+
+		graph.removeVertex("Dc");
+
+		assertThat(leaves.layers().toString()).isEqualTo(Graphs.leavesOf(graph).toString());
+		assertThat(roots.layers().toString()).isEqualTo(Graphs.rootsOf(graph).toString());
+
+		leaves.detach();
+		List<VerticesAndEdges<String, DefaultEdge>> detached = leaves.layers();
+		graph.addEdge("Da", "A");
+		assertThat(leaves.layers()).isSameAs(detached);
+		assertThat(roots.layers().toString()).isEqualTo(Graphs.rootsOf(graph).toString());
+	}
+
+	@Test
+	void sameLayersAsFullLayeringAfterRandomChanges() {
+		Random random = new Random(7);
+		DefaultDirectedGraph<Integer, DefaultEdge> base = Graphs.Directed.newInstance();
+		DefaultListenableGraph<Integer, DefaultEdge> graph = new DefaultListenableGraph<>(base);
+		for (int v = 0; v < 10; v++) {
+			graph.addVertex(v);
+		}
+		IncrementalLayering<Integer, DefaultEdge> leaves = IncrementalLayering.leavesOf(graph);
+		IncrementalLayering<Integer, DefaultEdge> roots = IncrementalLayering.rootsOf(graph);
+
+		for (int step = 0; step < 2000; step++) {
+			int action = random.nextInt(10);
+			if (action < 6) {
+				int source = random.nextInt(20);
+				int target = random.nextInt(20);
+				if (graph.containsVertex(source) && graph.containsVertex(target) && (source != target || random.nextInt(10) == 0)) {
+					graph.addEdge(source, target);
+				}
+			} else if (action < 8) {
+				List<DefaultEdge> edges = new ArrayList<>(graph.edgeSet());
+				if (!edges.isEmpty()) {
+					graph.removeEdge(edges.get(random.nextInt(edges.size())));
+				}
+			} else if (action < 9) {
+				graph.addVertex(random.nextInt(20));
+			} else {
+				graph.removeVertex(random.nextInt(20));
+			}
+
+			assertThat(leaves.layers().toString())
+				.describedAs("step %s: %s", step, graph)
+				.isEqualTo(Graphs.leavesOf(graph).toString());
+			assertThat(roots.layers().toString())
+				.describedAs("step %s: %s", step, graph)
+				.isEqualTo(Graphs.rootsOf(graph).toString());
+		}
+	}
+
+	@Test
+	void sameLayersAsFullLayeringOnMostlyAcyclicGraph() {
+		Random random = new Random(11);
+		DefaultListenableGraph<Integer, DefaultEdge> graph = new DefaultListenableGraph<>(Graphs.Directed.newInstance());
+		for (int v = 0; v < 40; v++) {
+			graph.addVertex(v);
+		}
+		IncrementalLayering<Integer, DefaultEdge> leaves = IncrementalLayering.leavesOf(graph);
+		IncrementalLayering<Integer, DefaultEdge> roots = IncrementalLayering.rootsOf(graph);
+
+		for (int step = 0; step < 2000; step++) {
+			if (random.nextInt(4) > 0) {
+				int source = random.nextInt(40);
+				int target = random.nextInt(40);
+				// edges against the vertex order are rare, so loops come and go
+				if (source > target || random.nextInt(20) == 0) {
+					graph.addEdge(source, target);
+				}
+			} else {
+				List<DefaultEdge> edges = new ArrayList<>(graph.edgeSet());
+				if (!edges.isEmpty()) {
+					graph.removeEdge(edges.get(random.nextInt(edges.size())));
+				}
+			}
+
+			assertThat(leaves.layers().toString())
+				.describedAs("step %s: %s", step, graph)
+				.isEqualTo(Graphs.leavesOf(graph).toString());
+			assertThat(roots.layers().toString())
+				.describedAs("step %s: %s", step, graph)
+				.isEqualTo(Graphs.rootsOf(graph).toString());
+		}
+	}
+}
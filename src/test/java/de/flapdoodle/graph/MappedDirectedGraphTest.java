@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static de.flapdoodle.graph.ReadOnlyGraphFixture.assertSameAlgorithmResults;
+import static de.flapdoodle.graph.ReadOnlyGraphFixture.assertSameStructure;
+import static de.flapdoodle.graph.ReadOnlyGraphFixture.sample;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedDirectedGraphTest {
+
+	@Test
+	void sameStructureAsSource(@TempDir Path tempDir) throws IOException {
+		DefaultDirectedGraph<String, DefaultEdge> src = sample();
+		MappedDirectedGraph<String> mapped = writeAndOpen(src, tempDir);
+
+		assertSameStructure(mapped, src);
+		assertThatThrownBy(() -> mapped.addVertex("X")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> mapped.outDegreeOf("X")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void graphsAlgorithmsOnMappedGraph(@TempDir Path tempDir) throws IOException {
+		DefaultDirectedGraph<String, DefaultEdge> src = sample();
+		MappedDirectedGraph<String> mapped = writeAndOpen(src, tempDir);
+
+		assertSameAlgorithmResults(mapped, src);
+	}
+
+	@Test
+	void algorithmsShareOneIndexOverTheMappedTables(@TempDir Path tempDir) throws IOException {
+		MappedDirectedGraph<String> mapped = writeAndOpen(sample(), tempDir);
+		IndexedGraph<String, MappedDirectedGraph.MappedEdge> indexed = IndexedGraph.of(mapped);
+
+		assertThat(indexed).isNotInstanceOf(ArrayIndexedGraph.class);
+		assertThat(IndexedGraph.of(mapped)).isSameAs(indexed);
+
+		assertThat(indexed.vertices()).containsExactlyElementsOf(mapped.vertexSet());
+		assertThat(indexed.indexOf("X")).isEqualTo(-1);
+		for (int v = 0; v < indexed.vertexCount(); v++) {
+			String vertex = indexed.vertex(v);
+			assertThat(indexed.outDegree(v)).isEqualTo(mapped.outDegreeOf(vertex));
+			assertThat(indexed.inDegree(v)).isEqualTo(mapped.inDegreeOf(vertex));
+			for (int i = 0; i < indexed.outDegree(v); i++) {
+				assertThat(indexed.source(indexed.outEdge(v, i))).isEqualTo(v);
+			}
+			for (int i = 0; i < indexed.inDegree(v); i++) {
+				assertThat(indexed.target(indexed.inEdge(v, i))).isEqualTo(v);
+			}
+		}
+		for (int e = 0; e < indexed.edgeCount(); e++) {
+			MappedDirectedGraph.MappedEdge edge = indexed.edge(e);
+			assertThat(edge.id()).isEqualTo(e);
+			assertThat(indexed.vertex(indexed.source(e))).isEqualTo(mapped.getEdgeSource(edge));
+			assertThat(indexed.vertex(indexed.target(e))).isEqualTo(mapped.getEdgeTarget(edge));
+		}
+	}
+
+	@Test
+	void weightedGraph(@TempDir Path tempDir) throws IOException {
+		DefaultDirectedWeightedGraph<Integer, DefaultWeightedEdge> src = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+		for (int i = 0; i < 1000; i++) {
+			src.addVertex(i);
+			if (i > 0) {
+				src.setEdgeWeight(src.addEdge(i, i / 2), i * 0.5);
+			}
+		}
+		Path file = tempDir.resolve("graph.bin");
+		MappedDirectedGraph.write(src, VertexCodec.integers(), file);
+
+		MappedDirectedGraph<Integer> mapped = MappedDirectedGraph.open(file, VertexCodec.integers());
+
+		assertThat(mapped.getType().isWeighted()).isTrue();
+		assertThat(mapped.getEdgeWeight(mapped.getEdge(999, 499))).isEqualTo(499.5);
+		assertThat(mapped.vertexSet()).containsExactlyElementsOf(src.vertexSet());
+	}
+
+	@Test
+	void rejectsOtherFiles(@TempDir Path tempDir) throws IOException {
+		Path file = tempDir.resolve("other.bin");
+		Files.write(file, new byte[64]);
+
+		assertThatThrownBy(() -> MappedDirectedGraph.open(file, VertexCodec.strings())).isInstanceOf(IOException.class);
+	}
+
+	private static MappedDirectedGraph<String> writeAndOpen(DefaultDirectedGraph<String, DefaultEdge> src, Path tempDir) throws IOException {
+		Path file = tempDir.resolve("graph.bin");
+		MappedDirectedGraph.write(src, VertexCodec.strings(), file);
+		return MappedDirectedGraph.open(file, VertexCodec.strings());
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReachabilityIndexTest {
+
+	@Test
+	void pathsAreDirected() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C");
+				builder.addEdge("A", "B");
+				builder.addEdge("C", "B");
+			});
+
+		ReachabilityIndex<String> index = ReachabilityIndex.of(graph);
+
+		assertThat(index.hasPath("A", "B")).isTrue();
+		assertThat(index.hasPath("C", "B")).isTrue();
+		assertThat(index.hasPath("A", "C")).isFalse();
+		assertThat(index.hasPath("B", "C")).isFalse();
+		assertThat(index.hasPath("B", "A")).isFalse();
+		assertThat(index.hasPath("A", "A")).isFalse();
+
+		assertThatThrownBy(() -> index.hasPath("A", "X"))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void descendantsAndAncestorsWithLoop() {
+		DefaultDirectedGraph<String, DefaultEdge> graph = Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "Ca", "D", "Da", "Db", "Dc");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("C", "Ca");
+				builder.addEdge("D", "Da");
+				builder.addEdge("D", "Db");
+				builder.addEdge("D", "Dc");
+				builder.addEdge("Dc", "C");
+			});
+
+		ReachabilityIndex<String> index = Graphs.reachabilityIndexOf(graph);
+
+		assertThat(index.descendantsOf("A")).containsExactly("B", "C", "Ca", "D", "Da", "Db", "Dc");
+		assertThat(index.descendantsOf("D")).containsExactly("C", "Ca", "Da", "Db", "Dc");
+		assertThat(index.descendantsOf("Ca")).isEmpty();
+		assertThat(index.ancestorsOf("C")).containsExactly("A", "B", "D", "Dc");
+		assertThat(index.ancestorsOf("A")).isEmpty();
+		assertThat(index.hasPath("Dc", "D")).isTrue();
+		assertThat(index.hasPath("Ca", "C")).isFalse();
+	}
+
+	@Test
+	void sameAnswersAsGraphsHasPath() {
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++) {
+			int vertexCount = 1 + random.nextInt(30);
+			DefaultDirectedGraph<Integer, DefaultEdge> graph = Graphs.Directed.newInstance();
+			for (int v = 0; v < vertexCount; v++) {
+				graph.addVertex(v);
+			}
+			int edgeCount = random.nextInt(vertexCount * 2);
+			for (int e = 0; e < edgeCount; e++) {
+				graph.addEdge(random.nextInt(vertexCount), random.nextInt(vertexCount));
+			}
+
+			ReachabilityIndex<Integer> index = ReachabilityIndex.of(graph);
+			for (int from = 0; from < vertexCount; from++) {
+				for (int to = 0; to < vertexCount; to++) {
+					boolean expected = Graphs.hasPath(graph, from, to);
+					assertThat(index.hasPath(from, to))
+						.describedAs("%s -> %s in %s", from, to, graph)
+						.isEqualTo(expected);
+					assertThat(index.descendantsOf(from).contains(to)).isEqualTo(expected);
+					assertThat(index.ancestorsOf(to).contains(from)).isEqualTo(expected);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * shared fixture for the read only graph implementations, edges are compared by their endpoints
+ */
+final class ReadOnlyGraphFixture {
+
+	private ReadOnlyGraphFixture() {
+		// no instance
+	}
+
+	static DefaultDirectedGraph<String, DefaultEdge> sample() {
+		return Graphs.with(Graphs.graphBuilder(Graphs.directedGraphFactory(String.class, DefaultEdge.class)))
+			.build(builder -> {
+				builder.addVertices("A", "B", "C", "Ca", "D", "Da", "Db", "Dc");
+				builder.addEdgeChain("A", "B", "C", "D");
+				builder.addEdge("C", "Ca");
+				builder.addEdge("D", "Da");
+				builder.addEdge("D", "Db");
+				builder.addEdge("D", "Dc");
+				builder.addEdge("Dc", "C");
+				builder.addEdge("Db", "Db");
+			});
+	}
+
+	static <E> void assertSameStructure(Graph<String, E> graph, Graph<String, DefaultEdge> src) {
+		assertThat(graph.vertexSet()).containsExactlyElementsOf(src.vertexSet());
+		assertThat(endpoints(graph, graph.edgeSet())).containsExactlyElementsOf(endpoints(src, src.edgeSet()));
+
+		for (String v : src.vertexSet()) {
+			assertThat(endpoints(graph, graph.outgoingEdgesOf(v))).containsExactlyInAnyOrderElementsOf(endpoints(src, src.outgoingEdgesOf(v)));
+			assertThat(endpoints(graph, graph.incomingEdgesOf(v))).containsExactlyInAnyOrderElementsOf(endpoints(src, src.incomingEdgesOf(v)));
+			assertThat(endpoints(graph, graph.edgesOf(v))).containsExactlyInAnyOrderElementsOf(endpoints(src, src.edgesOf(v)));
+			assertThat(graph.outDegreeOf(v)).isEqualTo(src.outDegreeOf(v));
+			assertThat(graph.inDegreeOf(v)).isEqualTo(src.inDegreeOf(v));
+			assertThat(graph.degreeOf(v)).isEqualTo(src.degreeOf(v));
+		}
+		assertThat(graph.containsVertex("X")).isFalse();
+		assertThat(graph.containsEdge("A", "B")).isTrue();
+		assertThat(graph.getEdge("A", "D")).isNull();
+		assertThat(graph.getType().isDirected()).isTrue();
+		assertThat(graph.getType().isAllowingSelfLoops()).isTrue();
+		assertThat(graph.getType().isModifiable()).isFalse();
+	}
+
+	static <E> void assertSameAlgorithmResults(Graph<String, E> graph, Graph<String, DefaultEdge> src) {
+		assertThat(layerVertices(Graphs.leavesOf(graph))).isEqualTo(layerVertices(Graphs.leavesOf(src)));
+		assertThat(layerVertices(Graphs.rootsOf(graph))).isEqualTo(layerVertices(Graphs.rootsOf(src)));
+		assertThat(loopVertices(Graphs.loopsOf(graph))).isEqualTo(loopVertices(Graphs.loopsOf(src)));
+		assertThat(Graphs.hasPath(graph, "A", "Dc")).isTrue();
+		assertThat(Graphs.hasPath(graph, "Ca", "A")).isFalse();
+
+		GraphAsDot<String> graphAsDot = GraphAsDot.builder(Function.<String>identity()).build();
+		assertThat(graphAsDot.asDot(graph)).isEqualTo(graphAsDot.asDot(src));
+	}
+
+	private static <E> List<String> endpoints(Graph<String, E> graph, Set<E> edges) {
+		return edges.stream()
+			.map(e -> graph.getEdgeSource(e) + "->" + graph.getEdgeTarget(e))
+			.collect(Collectors.toList());
+	}
+
+	private static List<Set<String>> layerVertices(List<? extends VerticesAndEdges<String, ?>> layers) {
+		return layers.stream().map(VerticesAndEdges::vertices).collect(Collectors.toList());
+	}
+
+	private static Set<Set<String>> loopVertices(List<? extends Loop<String, ?>> loops) {
+		return loops.stream().map(Loop::vertexSet).collect(Collectors.toSet());
+	}
+}